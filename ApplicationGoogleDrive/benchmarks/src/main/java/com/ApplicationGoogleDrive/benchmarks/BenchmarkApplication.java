@@ -0,0 +1,145 @@
+package com.ApplicationGoogleDrive.benchmarks;
+
+import com.ApplicationGoogleDrive.ApplicationGoogleDriveApplication;
+import com.ApplicationGoogleDrive.model.File;
+import com.ApplicationGoogleDrive.model.Role;
+import com.ApplicationGoogleDrive.model.User;
+import com.ApplicationGoogleDrive.repository.FileRepository;
+import com.ApplicationGoogleDrive.repository.RoleRepository;
+import com.ApplicationGoogleDrive.repository.UserRepository;
+import com.ApplicationGoogleDrive.security.JwtTokenUtil;
+import com.ApplicationGoogleDrive.service.ContentStoreService;
+import com.ApplicationGoogleDrive.service.FileService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+// Application complète démarrée pour un benchmark : base H2 en mémoire (mode MySQL) et stockage
+// dans un répertoire temporaire, supprimé à la fermeture. Aucune dépendance externe.
+public class BenchmarkApplication implements AutoCloseable {
+
+    // Clé HS256 (base64) des jetons générés pendant les benchmarks
+    public static final String JWT_SECRET = "ZHJpdmUtYmFja2VuZC1iZW5jaG1hcmtzLXNpZ25pbmcta2V5LTAxMjM0NTY3ODk=";
+
+    private final Path storageRoot;
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkApplication(Path storageRoot, ConfigurableApplicationContext context) {
+        this.storageRoot = storageRoot;
+        this.context = context;
+    }
+
+    public static BenchmarkApplication start(String name) throws IOException {
+        return start(name, Map.of());
+    }
+
+    // overrides : propriétés propres à un benchmark (mode d'exécution, limites...)
+    public static BenchmarkApplication start(String name, Map<String, Object> overrides) throws IOException {
+        Path storageRoot = Files.createTempDirectory("drive-bench-" + name);
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.datasource.url",
+                "jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.jpa.database-platform", "org.hibernate.dialect.H2Dialect");
+        properties.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("spring.jpa.properties.hibernate.format_sql", "false");
+        properties.put("server.port", "0");
+        properties.put("jwt.secret", JWT_SECRET);
+        properties.put("jwt.expiration", "86400000");
+        properties.put("spring.security.oauth2.client.registration.google.client-id", "benchmark");
+        properties.put("spring.security.oauth2.client.registration.google.client-secret", "benchmark");
+        properties.put("files.storage.volumes", storageRoot.toString());
+        properties.put("files.grants.sync-on-startup", "false");
+        properties.put("files.quota.default-bytes", "-1");
+        properties.put("logging.level.root", "WARN");
+        properties.putAll(overrides);
+
+        // Passées comme arguments de ligne de commande : elles priment sur l'application.properties
+        // embarqué dans le jar de l'application (des propriétés par défaut seraient masquées par lui)
+        List<String> arguments = new ArrayList<>();
+        properties.forEach((key, value) -> arguments.add("--" + key + "=" + value));
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ApplicationGoogleDriveApplication.class)
+                .run(arguments.toArray(String[]::new));
+        return new BenchmarkApplication(storageRoot, context);
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    // Port HTTP choisi au démarrage (server.port=0)
+    public int port() {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    public URI uri(String path) {
+        return URI.create("http://localhost:" + port() + path);
+    }
+
+    // En-tête Authorization des requêtes HTTP faites au nom de l'utilisateur
+    public String bearer(User user) {
+        return "Bearer " + bean(JwtTokenUtil.class).generateToken(user);
+    }
+
+    public User createUser(String email) {
+        Role role = bean(RoleRepository.class).findByName(Role.RoleName.ROLE_USER).orElseGet(() -> {
+            Role created = new Role();
+            created.setName(Role.RoleName.ROLE_USER);
+            return bean(RoleRepository.class).save(created);
+        });
+
+        User user = new User();
+        user.setEmail(email);
+        user.setFirstName("Bench");
+        user.setLastName(email.substring(0, email.indexOf('@')));
+        user.setPassword("unused");
+        user.setRoles(Set.of(role));
+        return bean(UserRepository.class).save(user);
+    }
+
+    // Ligne de fichier sans contenu stocké : suffit aux benchmarks de métadonnées et d'accès
+    public File createFile(User owner, String name, boolean isPublic) {
+        File file = new File();
+        file.setFileName(name);
+        file.setFileType("application/pdf");
+        file.setFilePath("bench/" + name);
+        file.setFileSize(1024L * 1024);
+        file.setOwner(owner);
+        file.setPublic(isPublic);
+        file.setDescription("Benchmark file " + name);
+        return bean(FileRepository.class).save(file);
+    }
+
+    // Fichier avec son contenu stocké, enregistré comme par un upload
+    public File storeFile(User owner, String name, String contentType, Path content) throws IOException {
+        try (InputStream in = Files.newInputStream(content)) {
+            ContentStoreService.StagedContent staged = bean(ContentStoreService.class).stage(in, contentType);
+            return bean(FileService.class).saveStagedFile(staged, name, contentType, null, false, owner, null);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        try (Stream<Path> paths = Files.walk(storageRoot)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.ApplicationGoogleDrive.benchmarks;
+
+import com.ApplicationGoogleDrive.dto.BulkDecisionRequest;
+import com.ApplicationGoogleDrive.model.AccessRequest;
+import com.ApplicationGoogleDrive.model.File;
+import com.ApplicationGoogleDrive.model.User;
+import com.ApplicationGoogleDrive.service.AccessRequestService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Décision groupée sur 10 000 demandes (mises à jour ensemblistes par lots de 500) ; chaque appel
+// inverse le statut de toutes les demandes, pour que chaque mesure modifie réellement les 10 000 lignes
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BulkDecisionBenchmark {
+
+    private static final int FILES = 100;
+    private static final int REQUESTERS = 100;
+
+    private BenchmarkApplication application;
+    private AccessRequestService accessRequestService;
+    private User owner;
+    private BulkDecisionRequest decision;
+    private boolean approve = true;
+
+    @Setup
+    public void setUp() throws IOException {
+        application = BenchmarkApplication.start("decisions");
+        accessRequestService = application.bean(AccessRequestService.class);
+        owner = application.createUser("owner@example.com");
+
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < FILES; i++) {
+            files.add(application.createFile(owner, "private-" + i + ".pdf", false));
+        }
+        List<Long> requestIds = new ArrayList<>();
+        for (int i = 0; i < REQUESTERS; i++) {
+            User requester = application.createUser("requester" + i + "@example.com");
+            for (File file : files) {
+                requestIds.add(accessRequestService.createRequest(requester, file.getId(), null).getId());
+            }
+        }
+
+        decision = new BulkDecisionRequest();
+        decision.setIds(requestIds);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        application.close();
+    }
+
+    @Benchmark
+    public Map<String, Object> decideAll() {
+        AccessRequest.RequestStatus status = approve
+                ? AccessRequest.RequestStatus.APPROVED
+                : AccessRequest.RequestStatus.REJECTED;
+        approve = !approve;
+        return accessRequestService.updateRequestStatuses(decision, owner, status);
+    }
+}
@@ -0,0 +1,120 @@
+package com.ApplicationGoogleDrive.benchmarks;
+
+import com.ApplicationGoogleDrive.service.ContentExtractor;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// Extraction du texte pour l'index de contenu : texte brut, texte stocké compressé et PDF
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContentExtractionBenchmark {
+
+    private static final int TEXT_SIZE = 1024 * 1024;
+    private static final int PDF_PAGES = 20;
+    private static final String LINE = "Quarterly report: revenue, margins and forecasts for the storage division. ";
+
+    @Param({"text", "gzip-text", "pdf"})
+    private String kind;
+
+    private ContentExtractor contentExtractor;
+    private Path file;
+    private String encoding;
+    private String fileType;
+
+    @Setup
+    public void setUp() throws IOException, ReflectiveOperationException {
+        contentExtractor = new ContentExtractor();
+        Field maxChars = ContentExtractor.class.getDeclaredField("maxChars");
+        maxChars.setAccessible(true);
+        maxChars.set(contentExtractor, 1_000_000);
+
+        file = Files.createTempFile("drive-bench-extract", "." + kind);
+        switch (kind) {
+            case "text" -> {
+                Files.write(file, text());
+                fileType = "text/plain";
+            }
+            case "gzip-text" -> {
+                try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+                    out.write(text());
+                }
+                encoding = "gzip";
+                fileType = "text/plain";
+            }
+            case "pdf" -> {
+                writePdf(file);
+                fileType = "application/pdf";
+            }
+            default -> throw new IllegalArgumentException("Unknown kind: " + kind);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Optional<String> extract() throws IOException {
+        return contentExtractor.extract(file, encoding, fileType, file.getFileName().toString());
+    }
+
+    private static byte[] text() {
+        StringBuilder text = new StringBuilder(TEXT_SIZE + LINE.length());
+        for (int line = 0; text.length() < TEXT_SIZE; line++) {
+            text.append(line).append(' ').append(LINE).append('\n');
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void writePdf(Path target) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+            for (int pageNumber = 0; pageNumber < PDF_PAGES; pageNumber++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(font, 10);
+                    content.setLeading(13);
+                    content.newLineAtOffset(40, 750);
+                    for (int line = 0; line < 55; line++) {
+                        content.showText(pageNumber + "." + line + " " + LINE);
+                        content.newLine();
+                    }
+                    content.endText();
+                }
+            }
+            document.save(target.toFile());
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.ApplicationGoogleDrive.benchmarks;
+
+import com.ApplicationGoogleDrive.service.ContentExtractor;
+import com.ApplicationGoogleDrive.service.ContentSearchIndex;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Pipeline de l'index de contenu sans Spring : extraction du texte d'un fichier puis indexation.
+// index : une opération par document (opérations/s = documents/s, compteur "inputBytes" en octets/s),
+// sur des ids réutilisés pour mesurer l'index en régime stable.
+// footprint : mémoire occupée par l'index rapportée à 1 Go de texte indexé (compteur "indexBytesPerGb").
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class ContentIndexingBenchmark {
+
+    private static final int DOCUMENT_FILES = 50;
+    private static final int DOCUMENT_IDS = 1000;
+    private static final int VOCABULARY = 50_000;
+    private static final long FOOTPRINT_CORPUS_BYTES = 64L * 1024 * 1024;
+
+    @Param({"16", "256"})
+    private int documentKb;
+
+    private ContentExtractor contentExtractor;
+    private ContentSearchIndex contentSearchIndex;
+    private String[] vocabulary;
+    private final List<Path> documents = new ArrayList<>();
+    private int next;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Indexed {
+        public long inputBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            inputBytes = 0;
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long indexBytesPerGb;
+        public long terms;
+    }
+
+    @Setup
+    public void setUp() throws IOException, ReflectiveOperationException {
+        contentExtractor = new ContentExtractor();
+        Field maxChars = ContentExtractor.class.getDeclaredField("maxChars");
+        maxChars.setAccessible(true);
+        maxChars.set(contentExtractor, 1_000_000);
+        contentSearchIndex = new ContentSearchIndex();
+
+        vocabulary = vocabulary();
+        Random random = new Random(42);
+        for (int i = 0; i < DOCUMENT_FILES; i++) {
+            Path document = Files.createTempFile("drive-bench-index", ".txt");
+            Files.writeString(document, document(random, documentKb * 1024), StandardCharsets.UTF_8);
+            documents.add(document);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        for (Path document : documents) {
+            Files.deleteIfExists(document);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @Warmup(iterations = 2, time = 5)
+    @Measurement(iterations = 5, time = 5)
+    public int index(Indexed indexed) throws IOException {
+        int position = next++;
+        Path document = documents.get(position % DOCUMENT_FILES);
+        Optional<String> text = contentExtractor.extract(document, null, "text/plain", "document.txt");
+        contentSearchIndex.index((long) (position % DOCUMENT_IDS), text.orElse(""));
+        indexed.inputBytes += documentKb * 1024L;
+        return contentSearchIndex.termCount();
+    }
+
+    // Un index construit sur FOOTPRINT_CORPUS_BYTES de texte, tas mesuré après GC avant et après. Une seule
+    // construction (itération d'une milliseconde) ; les compteurs gardent la valeur mesurée, non une somme.
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1, time = 1, timeUnit = TimeUnit.MILLISECONDS)
+    public int footprint(Footprint footprint) {
+        long before = usedHeapAfterGc();
+        ContentSearchIndex index = new ContentSearchIndex();
+        Random random = new Random(7);
+        long input = 0;
+        long id = 0;
+        while (input < FOOTPRINT_CORPUS_BYTES) {
+            String text = document(random, documentKb * 1024);
+            index.index(++id, text);
+            input += text.length();
+        }
+        long after = usedHeapAfterGc();
+
+        footprint.indexBytesPerGb = (after - before) * (1024L * 1024 * 1024) / input;
+        footprint.terms = index.termCount();
+        return index.documentCount();
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    // Mots prononçables et distincts ("bakodu", "tirema"...)
+    private static String[] vocabulary() {
+        String[] syllables = {"ba", "ko", "du", "ti", "re", "ma", "no", "su", "pe", "li", "ga", "fo", "ze", "vi", "ch", "an"};
+        String[] words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int value = i + syllables.length; value > 0; value /= syllables.length) {
+                word.append(syllables[value % syllables.length]);
+            }
+            words[i] = word.toString();
+        }
+        return words;
+    }
+
+    // Fréquences proches d'un texte réel : quelques mots très fréquents, une longue traîne de mots rares,
+    // et des nombres
+    private String document(Random random, int size) {
+        StringBuilder text = new StringBuilder(size + 32);
+        while (text.length() < size) {
+            if (random.nextInt(12) == 0) {
+                text.append(random.nextInt(100_000));
+            } else {
+                text.append(vocabulary[(int) (VOCABULARY * Math.pow(random.nextDouble(), 3))]);
+            }
+            text.append(random.nextInt(15) == 0 ? ".\n" : " ");
+        }
+        text.setLength(size);
+        return text.toString();
+    }
+}
@@ -0,0 +1,128 @@
+package com.ApplicationGoogleDrive.benchmarks;
+
+import com.ApplicationGoogleDrive.model.File;
+import com.ApplicationGoogleDrive.model.User;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Mémoire d'un téléchargement selon la taille du fichier : octets alloués par les threads de Tomcat
+// pendant le téléchargement (compteur "serverAllocatedBytes" divisé par le nombre d'opérations).
+// Le contenu étant lu en flux, la valeur reste la même de 1 Mo à 512 Mo ; un chargement en byte[]
+// allouerait au moins la taille du fichier. Avec sendfile, la copie est faite par le noyau.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class DownloadMemoryBenchmark {
+
+    @Param({"1", "64", "512"})
+    private int sizeMb;
+
+    // false : copie par Spring depuis le disque (seuil sendfile jamais atteint)
+    @Param({"true", "false"})
+    private boolean sendfile;
+
+    private BenchmarkApplication application;
+    private HttpClient client;
+    private HttpRequest download;
+    private com.sun.management.ThreadMXBean threads;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Allocation {
+        public long serverAllocatedBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            serverAllocatedBytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        application = BenchmarkApplication.start("download",
+                Map.of("files.streaming.sendfile-threshold", sendfile ? "49152" : Long.toString(Long.MAX_VALUE)));
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        User owner = application.createUser("download@example.com");
+        Path content = Files.createTempFile("drive-bench-download", ".bin");
+        try {
+            writeRandom(content, (long) sizeMb * 1024 * 1024);
+            File file = application.storeFile(owner, "payload.bin", "application/octet-stream", content);
+            download = HttpRequest.newBuilder(application.uri("/api/files/download/" + file.getId()))
+                    .header("Authorization", application.bearer(owner))
+                    .build();
+        } finally {
+            Files.delete(content);
+        }
+        client = HttpClient.newHttpClient();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        application.close();
+    }
+
+    @Benchmark
+    public int download(Allocation allocation) throws IOException, InterruptedException {
+        long before = serverAllocatedBytes();
+        HttpResponse<Void> response = client.send(download, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Download failed with status " + response.statusCode());
+        }
+        allocation.serverAllocatedBytes += serverAllocatedBytes() - before;
+        return response.statusCode();
+    }
+
+    // Threads du connecteur (http-nio-*) : exclut le client HTTP, qui tourne dans le même processus
+    private long serverAllocatedBytes() {
+        long[] ids = threads.getAllThreadIds();
+        ThreadInfo[] infos = threads.getThreadInfo(ids);
+        long[] allocated = threads.getThreadAllocatedBytes(ids);
+        long total = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (infos[i] != null && infos[i].getThreadName().startsWith("http-nio-") && allocated[i] > 0) {
+                total += allocated[i];
+            }
+        }
+        return total;
+    }
+
+    private static void writeRandom(Path target, long size) throws IOException {
+        byte[] block = new byte[1024 * 1024];
+        Random random = new Random(42);
+        try (OutputStream out = Files.newOutputStream(target)) {
+            for (long written = 0; written < size; written += block.length) {
+                random.nextBytes(block);
+                out.write(block, 0, (int) Math.min(block.length, size - written));
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.ApplicationGoogleDrive.benchmarks;
+
+import com.ApplicationGoogleDrive.model.AccessRequest;
+import com.ApplicationGoogleDrive.model.File;
+import com.ApplicationGoogleDrive.model.User;
+import com.ApplicationGoogleDrive.service.AccessDecisionCache;
+import com.ApplicationGoogleDrive.service.AccessRequestService;
+import com.ApplicationGoogleDrive.service.FileService;
+import com.ApplicationGoogleDrive.service.FileStatusResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// FileService.getFileWithAccessCheck sur une base H2 en mémoire, pour chaque cas du contrôle d'accès,
+// et statut groupé de 100 fichiers (FileStatusResolver) comparé aux appels fichier par fichier
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileAccessCheckBenchmark {
+
+    private static final int FILES = 100;
+
+    private BenchmarkApplication application;
+    private FileService fileService;
+    private FileStatusResolver fileStatusResolver;
+    private AccessDecisionCache accessDecisionCache;
+
+    private User owner;
+    private User requester;
+    private Long ownedFileId;
+    private Long publicFileId;
+    private Long grantedFileId;
+    private List<Long> fileIds;
+
+    @Setup
+    public void setUp() throws IOException {
+        application = BenchmarkApplication.start("access");
+        fileService = application.bean(FileService.class);
+        fileStatusResolver = application.bean(FileStatusResolver.class);
+        accessDecisionCache = application.bean(AccessDecisionCache.class);
+        AccessRequestService accessRequestService = application.bean(AccessRequestService.class);
+
+        owner = application.createUser("owner@example.com");
+        requester = application.createUser("requester@example.com");
+
+        // Un tiers de fichiers publics, un tiers privés avec accès accordé, un tiers privés sans demande
+        fileIds = new ArrayList<>();
+        for (int i = 0; i < FILES; i++) {
+            File file = application.createFile(owner, "file-" + i + ".pdf", i % 3 == 0);
+            fileIds.add(file.getId());
+            if (i % 3 == 1) {
+                AccessRequest request = accessRequestService.createRequest(requester, file.getId(), "benchmark");
+                accessRequestService.updateRequestStatus(request.getId(), owner, AccessRequest.RequestStatus.APPROVED);
+            }
+        }
+        publicFileId = fileIds.get(0);
+        grantedFileId = fileIds.get(1);
+        ownedFileId = fileIds.get(2);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        application.close();
+    }
+
+    @Benchmark
+    public File owner() {
+        return fileService.getFileWithAccessCheck(ownedFileId, owner);
+    }
+
+    @Benchmark
+    public File publicFile() {
+        return fileService.getFileWithAccessCheck(publicFileId, requester);
+    }
+
+    // Décision servie par AccessDecisionCache après le premier appel
+    @Benchmark
+    public File grantedCached() {
+        return fileService.getFileWithAccessCheck(grantedFileId, requester);
+    }
+
+    // Décision recalculée en base à chaque appel
+    @Benchmark
+    public File grantedUncached() {
+        accessDecisionCache.invalidate(grantedFileId, requester.getId());
+        return fileService.getFileWithAccessCheck(grantedFileId, requester);
+    }
+
+    @Benchmark
+    public Map<Long, FileStatusResolver.FileStatus> statusBatch() {
+        return fileStatusResolver.resolve(fileIds, requester);
+    }
+
+    // Ancien comportement du client : check-access et can-request pour chaque carte
+    @Benchmark
+    public int statusPerFile() {
+        int visible = 0;
+        for (Long fileId : fileIds) {
+            if (fileService.canUserViewFile(fileId, requester)) {
+                visible++;
+            }
+            if (fileService.canUserRequestAccess(fileId, requester)) {
+                visible--;
+            }
+        }
+        return visible;
+    }
+}
@@ -0,0 +1,82 @@
+package com.ApplicationGoogleDrive.benchmarks;
+
+import com.ApplicationGoogleDrive.model.File;
+import com.ApplicationGoogleDrive.model.Role;
+import com.ApplicationGoogleDrive.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Sérialisation Jackson des listes de fichiers renvoyées par les endpoints de liste
+// (entités File avec leur propriétaire, comme dans les réponses non paginées)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileSerializationBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int size;
+
+    private JsonMapper jsonMapper;
+    private List<File> files;
+
+    @Setup
+    public void setUp() {
+        jsonMapper = JsonMapper.builder().build();
+
+        Role role = new Role();
+        role.setId(1L);
+        role.setName(Role.RoleName.ROLE_USER);
+        List<User> owners = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            User owner = new User();
+            owner.setId((long) i + 1);
+            owner.setEmail("owner" + i + "@example.com");
+            owner.setFirstName("Owner");
+            owner.setLastName("Number " + i);
+            owner.setRoles(Set.of(role));
+            owner.setCreatedAt(LocalDateTime.now());
+            owners.add(owner);
+        }
+
+        files = new ArrayList<>(size);
+        LocalDateTime uploadedAt = LocalDateTime.now();
+        for (int i = 0; i < size; i++) {
+            File file = new File();
+            file.setId((long) i + 1);
+            file.setFileName("document-" + i + ".pdf");
+            file.setFileType("application/pdf");
+            file.setFilePath("1/ab/cd/" + Integer.toHexString(i));
+            file.setFileSize(1024L * (i + 1));
+            file.setContentHash(String.format("%064x", i));
+            file.setOwner(owners.get(i % owners.size()));
+            file.setPublic(i % 2 == 0);
+            file.setDescription("Description of document " + i);
+            file.setUploadedAt(uploadedAt.minusMinutes(i));
+            files.add(file);
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return jsonMapper.writeValueAsBytes(files);
+    }
+}
@@ -0,0 +1,82 @@
+package com.ApplicationGoogleDrive.benchmarks;
+
+import com.ApplicationGoogleDrive.model.Role;
+import com.ApplicationGoogleDrive.model.User;
+import com.ApplicationGoogleDrive.security.AuthenticatedUser;
+import com.ApplicationGoogleDrive.security.JwtTokenUtil;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Field;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Coût des jetons JWT par requête : génération à la connexion, parsing et validation dans le filtre
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenUtilBenchmark {
+
+    private JwtTokenUtil jwtTokenUtil;
+    private User user;
+    private AuthenticatedUser principal;
+    private String token;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        jwtTokenUtil = new JwtTokenUtil();
+        setField(jwtTokenUtil, "secret", BenchmarkApplication.JWT_SECRET);
+        setField(jwtTokenUtil, "expiration", 86400000L);
+
+        Role role = new Role();
+        role.setName(Role.RoleName.ROLE_USER);
+        user = new User();
+        user.setId(42L);
+        user.setEmail("bench@example.com");
+        user.setFirstName("Bench");
+        user.setLastName("User");
+        user.setRoles(Set.of(role));
+
+        token = jwtTokenUtil.generateToken(user);
+        principal = AuthenticatedUser.from(user);
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtTokenUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public Claims parse() {
+        return jwtTokenUtil.getValidatedClaims(token);
+    }
+
+    // Chemin du filtre : un parsing, puis le principal reconstruit depuis les claims
+    @Benchmark
+    public AuthenticatedUser parseToPrincipal() {
+        return jwtTokenUtil.getAuthenticatedUser(jwtTokenUtil.getValidatedClaims(token));
+    }
+
+    @Benchmark
+    public Boolean validate() {
+        return jwtTokenUtil.validateToken(token, principal);
+    }
+
+    private static void setField(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
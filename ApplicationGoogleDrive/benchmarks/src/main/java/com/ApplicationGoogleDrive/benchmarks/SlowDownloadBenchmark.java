@@ -0,0 +1,116 @@
+package com.ApplicationGoogleDrive.benchmarks;
+
+import com.ApplicationGoogleDrive.model.File;
+import com.ApplicationGoogleDrive.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Téléchargements par des clients lents, threads de plateforme contre threads virtuels.
+// 200 clients simultanés (-t pour changer) lisent chacun 8 Mo à environ 2 Mo/s ; le pool Tomcat est limité
+// à 50 threads. En threads de plateforme, chaque téléchargement occupe un thread jusqu'à la fin : au-delà
+// de 50 clients les requêtes attendent et le p99 (mode SampleTime) s'allonge. En threads virtuels, la
+// durée reste celle imposée par le débit des clients. sendfile est désactivé : avec lui, le thread de la
+// requête est libéré avant l'envoi. Le mode virtuel demande une JVM 21+ (sinon identique au mode plateforme).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 20)
+@Measurement(iterations = 3, time = 20)
+@Threads(200)
+@Fork(1)
+public class SlowDownloadBenchmark {
+
+    private static final int FILE_SIZE = 8 * 1024 * 1024;
+    private static final int READ_SIZE = 16 * 1024;
+    // Pause après chaque lecture de READ_SIZE octets : environ 2 Mo/s par client
+    private static final long READ_PAUSE_MS = 8;
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    private BenchmarkApplication application;
+    private int port;
+    private byte[] request;
+
+    @Setup
+    public void setUp() throws IOException {
+        application = BenchmarkApplication.start("slow-download", Map.of(
+                "spring.threads.virtual.enabled", Boolean.toString(virtualThreads),
+                "server.tomcat.threads.max", "50",
+                "files.streaming.sendfile-threshold", Long.toString(Long.MAX_VALUE)));
+        port = application.port();
+
+        User owner = application.createUser("slow@example.com");
+        Path content = Files.createTempFile("drive-bench-slow", ".bin");
+        try {
+            byte[] bytes = new byte[FILE_SIZE];
+            new Random(42).nextBytes(bytes);
+            Files.write(content, bytes);
+            File file = application.storeFile(owner, "payload.bin", "application/octet-stream", content);
+            request = ("GET /api/files/download/" + file.getId() + " HTTP/1.1\r\n"
+                    + "Host: localhost\r\n"
+                    + "Authorization: " + application.bearer(owner) + "\r\n"
+                    + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        } finally {
+            Files.delete(content);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        application.close();
+    }
+
+    // Petit tampon de réception : le débit du client limite réellement celui du serveur
+    @Benchmark
+    public long slowDownload() throws IOException, InterruptedException {
+        try (Socket socket = new Socket()) {
+            socket.setReceiveBufferSize(READ_SIZE);
+            socket.connect(new InetSocketAddress("localhost", port));
+            OutputStream out = socket.getOutputStream();
+            out.write(request);
+            out.flush();
+
+            InputStream in = socket.getInputStream();
+            byte[] buffer = new byte[READ_SIZE];
+            int read = in.readNBytes(buffer, 0, 12);
+            String status = new String(buffer, 0, read, StandardCharsets.US_ASCII);
+            if (!status.equals("HTTP/1.1 200")) {
+                throw new IllegalStateException("Download failed: " + status);
+            }
+
+            long total = read;
+            while ((read = in.read(buffer)) != -1) {
+                total += read;
+                Thread.sleep(READ_PAUSE_MS);
+            }
+            if (total < FILE_SIZE) {
+                throw new IllegalStateException("Download truncated after " + total + " bytes");
+            }
+            return total;
+        }
+    }
+}
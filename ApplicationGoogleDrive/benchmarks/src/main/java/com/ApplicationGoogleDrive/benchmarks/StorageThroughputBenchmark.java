@@ -0,0 +1,125 @@
+package com.ApplicationGoogleDrive.benchmarks;
+
+import com.ApplicationGoogleDrive.model.File;
+import com.ApplicationGoogleDrive.model.User;
+import com.ApplicationGoogleDrive.service.ContentStoreService;
+import com.ApplicationGoogleDrive.service.FileService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Débit du stockage : écriture d'un upload (hachage SHA-256, compression gzip des types texte)
+// et relecture d'un fichier stocké (décompression à la volée). Le compteur "bytes" donne des octets/s.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class StorageThroughputBenchmark {
+
+    @Param({"65536", "8388608"})
+    private int size;
+
+    // Binaire (stocké tel quel) ou texte (stocké compressé)
+    @Param({"application/octet-stream", "text/csv"})
+    private String contentType;
+
+    private BenchmarkApplication application;
+    private ContentStoreService contentStoreService;
+    private FileService fileService;
+    private byte[] payload;
+    private File storedFile;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Transferred {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        application = BenchmarkApplication.start("storage");
+        contentStoreService = application.bean(ContentStoreService.class);
+        fileService = application.bean(FileService.class);
+        payload = contentType.startsWith("text/") ? textPayload(size) : binaryPayload(size);
+
+        User owner = application.createUser("storage@example.com");
+        ContentStoreService.StagedContent staged = contentStoreService.stage(
+                new ByteArrayInputStream(payload), contentType);
+        storedFile = fileService.saveStagedFile(staged, "payload", contentType, null, false, owner, null);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        application.close();
+    }
+
+    @Benchmark
+    public String upload(Transferred transferred) throws IOException {
+        ContentStoreService.StagedContent staged = contentStoreService.stage(
+                new ByteArrayInputStream(payload), contentType);
+        Files.delete(staged.path());
+        transferred.bytes += staged.size();
+        return staged.hash();
+    }
+
+    @Benchmark
+    public long download(Transferred transferred) throws IOException {
+        long total = 0;
+        byte[] buffer = new byte[65536];
+        try (InputStream in = fileService.openContent(storedFile)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                total += read;
+            }
+        }
+        transferred.bytes += total;
+        return total;
+    }
+
+    private static byte[] binaryPayload(int size) {
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+
+    // Lignes CSV variées : taux de compression proche d'un export réel
+    private static byte[] textPayload(int size) {
+        StringBuilder text = new StringBuilder(size + 128);
+        Random random = new Random(42);
+        int line = 0;
+        while (text.length() < size) {
+            text.append(line++).append(',').append("customer-").append(random.nextInt(10000)).append(',')
+                    .append(random.nextInt(1_000_000) / 100.0).append(",2024-0").append(1 + random.nextInt(9))
+                    .append("-1").append(random.nextInt(10)).append(",ok\n");
+        }
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        return Arrays.copyOf(bytes, size);
+    }
+}
@@ -0,0 +1,137 @@
+package com.ApplicationGoogleDrive.benchmarks;
+
+import com.ApplicationGoogleDrive.model.User;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Débit d'upload : MultipartFile (/upload, corps d'abord copié par Tomcat dans un fichier temporaire)
+// contre lecture directe du flux multipart (/upload/stream, une seule écriture). Le compteur
+// "uploadedBytes" donne des octets/s. Chaque upload a un contenu distinct (pas de déduplication) et
+// le fichier est supprimé après la mesure pour ne pas remplir le disque.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public class UploadIngestBenchmark {
+
+    private static final String BOUNDARY = "drive-bench-boundary";
+    private static final Pattern FILE_ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    @Param({"multipart", "stream"})
+    private String endpoint;
+
+    @Param({"8", "256"})
+    private int sizeMb;
+
+    private BenchmarkApplication application;
+    private HttpClient client;
+    private String authorization;
+    private byte[] payload;
+    private byte[] head;
+    private byte[] tail;
+    private long counter;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Transferred {
+        public long uploadedBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            uploadedBytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        // Sans limite de taille pour le chemin MultipartFile (1 Mo par défaut)
+        application = BenchmarkApplication.start("upload", Map.of(
+                "spring.servlet.multipart.max-file-size", "-1",
+                "spring.servlet.multipart.max-request-size", "-1"));
+        User owner = application.createUser("upload@example.com");
+        authorization = application.bearer(owner);
+        client = HttpClient.newHttpClient();
+
+        payload = new byte[sizeMb * 1024 * 1024];
+        new Random(42).nextBytes(payload);
+        head = ("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"description\"\r\n\r\n"
+                + "benchmark\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"payload.bin\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        tail = ("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        application.close();
+    }
+
+    @Benchmark
+    public long upload(Transferred transferred) throws IOException, InterruptedException {
+        // Les 8 premiers octets du contenu changent à chaque upload
+        byte[] prefix = ByteBuffer.allocate(Long.BYTES).putLong(++counter).array();
+        long length = head.length + payload.length + tail.length;
+        HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.fromPublisher(
+                HttpRequest.BodyPublishers.ofInputStream(() -> multipartBody(prefix)), length);
+        String path = endpoint.equals("stream") ? "/api/files/upload/stream" : "/api/files/upload";
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(application.uri(path))
+                        .header("Authorization", authorization)
+                        .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                        .POST(body)
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        Matcher fileId = FILE_ID.matcher(response.body());
+        if (response.statusCode() != 200 || !fileId.find()) {
+            throw new IllegalStateException("Upload failed with status " + response.statusCode() + ": " + response.body());
+        }
+        transferred.uploadedBytes += payload.length;
+
+        client.send(HttpRequest.newBuilder(application.uri("/api/files/" + fileId.group(1)))
+                        .header("Authorization", authorization)
+                        .DELETE()
+                        .build(),
+                HttpResponse.BodyHandlers.discarding());
+        return payload.length;
+    }
+
+    private InputStream multipartBody(byte[] prefix) {
+        return new SequenceInputStream(Collections.enumeration(List.of(
+                new ByteArrayInputStream(head),
+                new ByteArrayInputStream(prefix),
+                new ByteArrayInputStream(payload, prefix.length, payload.length - prefix.length),
+                new ByteArrayInputStream(tail))));
+    }
+}
@@ -0,0 +1,44 @@
+package com.ApplicationGoogleDrive.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// Indique au démarrage le mode d'exécution des requêtes (threads de plateforme ou virtuels).
+// spring.threads.virtual.enabled fait passer Tomcat, @Scheduled et les exécuteurs de Spring sur des
+// threads virtuels, à condition que la JVM soit en version 21 ou plus ; sinon la propriété est ignorée.
+//
+// Risques d'épinglage identifiés (un thread virtuel bloqué dans un bloc synchronized garde son
+// thread porteur jusqu'au JDK 24) :
+// - caches Caffeine : les requêtes SQL des caches d'accès et de statut utilisateur sont exécutées
+//   hors du verrou de la map (AsyncCache), jamais dans ConcurrentHashMap.compute ;
+// - pilote MySQL : Connector/J 9.x n'utilise plus synchronized sur le chemin des requêtes ;
+// - HikariCP : pas de synchronized sur l'emprunt de connexion ; la taille du pool reste la vraie
+//   limite de concurrence JDBC, les threads virtuels attendent une connexion sans bloquer de porteur ;
+// - pools d'extraction de contenu et de miniatures : volontairement sur des threads de plateforme
+//   bornés (travail CPU), indépendants de ce mode.
+@Slf4j
+@Component
+public class ThreadingModeReporter {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsRequested;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void report() {
+        int javaVersion = Runtime.version().feature();
+        if (!virtualThreadsRequested) {
+            log.info("Request handling on platform threads (Java {})", javaVersion);
+        } else if (javaVersion < 21) {
+            log.warn("spring.threads.virtual.enabled is set but Java {} has no virtual threads; "
+                    + "request handling stays on platform threads", javaVersion);
+        } else {
+            log.info("Request handling on virtual threads (Java {})", javaVersion);
+            if (javaVersion < 24) {
+                log.info("Run with -Djdk.tracePinnedThreads=short to report virtual threads pinned by synchronized blocks");
+            }
+        }
+    }
+}
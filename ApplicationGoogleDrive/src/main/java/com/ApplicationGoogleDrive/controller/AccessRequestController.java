@@ -1,15 +1,21 @@
 package com.ApplicationGoogleDrive.controller;
 
+import com.ApplicationGoogleDrive.dto.BulkDecisionRequest;
+import com.ApplicationGoogleDrive.dto.ListingRequest;
 import com.ApplicationGoogleDrive.model.AccessRequest;
 import com.ApplicationGoogleDrive.model.User;
+import com.ApplicationGoogleDrive.service.AccessRequestEvents;
 import com.ApplicationGoogleDrive.service.AccessRequestService;
-import com.ApplicationGoogleDrive.service.UserService;
+import com.ApplicationGoogleDrive.security.AuthenticatedUser;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.HashMap;
 import java.util.List;
@@ -24,26 +30,57 @@ public class AccessRequestController {
     private AccessRequestService accessRequestService;
 
     @Autowired
-    private UserService userService;
+    private ConditionalResponses conditionalResponses;
 
-    // Obtenir les demandes reçues
+    @Autowired
+    private AccessRequestEvents accessRequestEvents;
+
+    // Flux SSE des changements de demandes (créées, traitées, supprimées) qui concernent l'utilisateur :
+    // remplace l'interrogation périodique de has-requested, can-request, quick-check et received
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @AuthenticationPrincipal AuthenticatedUser authenticatedUser,
+            HttpServletResponse response) {
+
+        // Pas de mise en mémoire tampon par un proxy (nginx) : chaque événement part immédiatement
+        response.setHeader("X-Accel-Buffering", "no");
+        response.setHeader("Cache-Control", "no-store");
+        return accessRequestEvents.connect(authenticatedUser.getId(), lastEventId);
+    }
+
+    // Obtenir les demandes reçues (paginé si cursor ou limit est fourni)
     @GetMapping("/received")
-    public ResponseEntity<List<AccessRequest>> getReceivedRequests(
-            @AuthenticationPrincipal UserDetails userDetails) {
+    public ResponseEntity<?> getReceivedRequests(
+            ListingRequest listing,
+            @AuthenticationPrincipal AuthenticatedUser authenticatedUser,
+            HttpServletRequest request) {
 
-        User currentUser = userService.findByEmail(userDetails.getUsername());
-        List<AccessRequest> requests = accessRequestService.getRequestsByOwner(currentUser);
-        return ResponseEntity.ok(requests);
+        try {
+            User currentUser = authenticatedUser.toUser();
+            return conditionalResponses.listing(request, currentUser.getId(), () -> listing.isPaged()
+                    ? accessRequestService.getRequestsByOwner(currentUser, listing)
+                    : accessRequestService.getRequestsByOwner(currentUser));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     // Obtenir les demandes envoyées
     @GetMapping("/sent")
-    public ResponseEntity<List<AccessRequest>> getSentRequests(
-            @AuthenticationPrincipal UserDetails userDetails) {
+    public ResponseEntity<?> getSentRequests(
+            ListingRequest listing,
+            @AuthenticationPrincipal AuthenticatedUser authenticatedUser,
+            HttpServletRequest request) {
 
-        User currentUser = userService.findByEmail(userDetails.getUsername());
-        List<AccessRequest> requests = accessRequestService.getRequestsByRequester(currentUser);
-        return ResponseEntity.ok(requests);
+        try {
+            User currentUser = authenticatedUser.toUser();
+            return conditionalResponses.listing(request, currentUser.getId(), () -> listing.isPaged()
+                    ? accessRequestService.getRequestsByRequester(currentUser, listing)
+                    : accessRequestService.getRequestsByRequester(currentUser));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     // Mettre à jour le statut d'une demande
@@ -51,10 +88,10 @@ public class AccessRequestController {
     public ResponseEntity<?> updateRequestStatus(
             @PathVariable Long requestId,
             @RequestParam String status,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
 
         try {
-            User currentUser = userService.findByEmail(userDetails.getUsername());
+            User currentUser = authenticatedUser.toUser();
             AccessRequest.RequestStatus requestStatus =
                     AccessRequest.RequestStatus.valueOf(status.toUpperCase());
 
@@ -75,14 +112,38 @@ public class AccessRequestController {
         }
     }
 
+    // Approuver ou rejeter plusieurs demandes (ids, ou toutes les demandes en attente d'un fichier)
+    @PutMapping("/bulk")
+    public ResponseEntity<?> updateRequestStatuses(
+            @RequestParam String status,
+            @RequestBody BulkDecisionRequest decision,
+            @AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
+
+        try {
+            User currentUser = authenticatedUser.toUser();
+            AccessRequest.RequestStatus requestStatus =
+                    AccessRequest.RequestStatus.valueOf(status.toUpperCase());
+
+            return ResponseEntity.ok(accessRequestService.updateRequestStatuses(
+                    decision, currentUser, requestStatus));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "Invalid status: " + status));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
     // Supprimer une demande
     @DeleteMapping("/{requestId}")
     public ResponseEntity<?> deleteRequest(
             @PathVariable Long requestId,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
 
         try {
-            User currentUser = userService.findByEmail(userDetails.getUsername());
+            User currentUser = authenticatedUser.toUser();
             accessRequestService.deleteRequest(requestId, currentUser);
 
             return ResponseEntity.ok(Map.of("message", "Request deleted successfully"));
@@ -39,9 +39,9 @@ public class AuthController {
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        String jwt = jwtTokenUtil.generateToken(userDetails);
 
-        User user = userService.findByEmail(loginRequest.getEmail());
+        User user = userService.findByEmail(userDetails.getUsername());
+        String jwt = jwtTokenUtil.generateToken(user);
 
         return ResponseEntity.ok(new JwtResponse(
                 jwt,
@@ -70,8 +70,7 @@ public class AuthController {
         );
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        String jwt = jwtTokenUtil.generateToken(userDetails);
+        String jwt = jwtTokenUtil.generateToken(user);
 
         return ResponseEntity.ok(new JwtResponse(
                 jwt,
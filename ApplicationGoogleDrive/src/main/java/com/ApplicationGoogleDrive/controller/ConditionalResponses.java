@@ -0,0 +1,123 @@
+package com.ApplicationGoogleDrive.controller;
+
+import com.ApplicationGoogleDrive.model.File;
+import com.ApplicationGoogleDrive.service.ListingVersion;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.function.Supplier;
+
+// Requêtes conditionnelles (If-None-Match / If-Modified-Since) : le 304 est décidé avant de lire
+// le fichier ou de sérialiser la liste
+@Component
+public class ConditionalResponses {
+
+    @Autowired
+    private ListingVersion listingVersion;
+
+    @Autowired
+    private FileStreamingSupport fileStreamingSupport;
+
+    @Value("${files.cache.public-max-age-seconds:300}")
+    private long publicMaxAgeSeconds;
+
+    // ETag fort du contenu : empreinte SHA-256 (ou id + taille pour les fichiers historiques),
+    // plus la variante (taille de miniature, encodage envoyé tel quel)
+    public String contentEtag(File file, String variant, HttpServletRequest request) {
+        String tag = file.getContentHash() != null
+                ? file.getContentHash()
+                : file.getId() + "-" + file.getFileSize();
+        if (variant != null) {
+            tag += "-" + variant;
+        } else if (file.getStorageEncoding() != null
+                && fileStreamingSupport.acceptsEncoding(request, file.getStorageEncoding())) {
+            tag += "-" + file.getStorageEncoding();
+        }
+        return "\"" + tag + "\"";
+    }
+
+    public long lastModified(File file) {
+        return file.getUploadedAt() != null
+                ? file.getUploadedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : -1;
+    }
+
+    // Fichier public : cache partagé autorisé pour une durée courte (la visibilité peut changer) ;
+    // fichier privé : cache du navigateur uniquement, revalidé à chaque fois
+    public CacheControl contentCacheControl(File file) {
+        if (file.isPublic()) {
+            return CacheControl.maxAge(Duration.ofSeconds(publicMaxAgeSeconds)).cachePublic().mustRevalidate();
+        }
+        return CacheControl.noCache().cachePrivate();
+    }
+
+    // Aussi sur les 304 : même Vary que la réponse 200 (le contenu compressé dépend d'Accept-Encoding)
+    public void applyContentHeaders(HttpHeaders headers, File file, String etag) {
+        headers.setETag(etag);
+        headers.setCacheControl(contentCacheControl(file));
+        if (file.getStorageEncoding() != null) {
+            headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        }
+    }
+
+    public boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        Enumeration<String> ifNoneMatch = request.getHeaders(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && ifNoneMatch.hasMoreElements()) {
+            // If-None-Match prime sur If-Modified-Since ; comparaison faible (RFC 9110)
+            while (ifNoneMatch.hasMoreElements()) {
+                for (String candidate : ifNoneMatch.nextElement().split(",")) {
+                    String trimmed = candidate.trim();
+                    if (trimmed.equals("*") || opaque(trimmed).equals(opaque(etag))) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        if (lastModified < 0) {
+            return false;
+        }
+        try {
+            long ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+            return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    public <T> ResponseEntity<T> notModified(HttpHeaders headers) {
+        return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+    }
+
+    // Liste propre à l'utilisateur : ETag faible dérivé de la version des listes, de l'utilisateur
+    // et de l'URL (pagination, filtres). La liste n'est calculée que si le client n'est pas à jour.
+    public ResponseEntity<?> listing(HttpServletRequest request, Long userId, Supplier<?> body) {
+        String url = request.getRequestURI() + (request.getQueryString() != null ? "?" + request.getQueryString() : "");
+        String etag = "W/\"" + listingVersion.current() + "-" + userId + "-"
+                + Integer.toHexString(url.hashCode()) + "\"";
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        headers.setCacheControl(CacheControl.noCache().cachePrivate());
+        headers.setVary(List.of(HttpHeaders.AUTHORIZATION));
+        if (isNotModified(request, etag, -1)) {
+            return notModified(headers);
+        }
+        return new ResponseEntity<>(body.get(), headers, HttpStatus.OK);
+    }
+
+    private String opaque(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
@@ -1,52 +1,96 @@
 package com.ApplicationGoogleDrive.controller;
 
+import com.ApplicationGoogleDrive.dto.BulkFileRequest;
+import com.ApplicationGoogleDrive.dto.FileStatusRequest;
+import com.ApplicationGoogleDrive.dto.FileStatusRow;
+import com.ApplicationGoogleDrive.dto.ListingRequest;
 import com.ApplicationGoogleDrive.model.File;
 import com.ApplicationGoogleDrive.model.User;
 import com.ApplicationGoogleDrive.model.AccessRequest;
+import com.ApplicationGoogleDrive.service.AccessDecisionCache;
+import com.ApplicationGoogleDrive.service.BulkFileService;
+import com.ApplicationGoogleDrive.service.ContentIndexingService;
 import com.ApplicationGoogleDrive.service.FileService;
+import com.ApplicationGoogleDrive.service.FileStatusResolver;
+import com.ApplicationGoogleDrive.service.RenditionService;
+import com.ApplicationGoogleDrive.service.StreamingUploadService;
+import com.ApplicationGoogleDrive.service.StorageUsageService;
+import com.ApplicationGoogleDrive.service.ZipDownloadService;
 import com.ApplicationGoogleDrive.service.AccessRequestService;
-import com.ApplicationGoogleDrive.service.UserService;
 import com.ApplicationGoogleDrive.repository.FileRepository;
 import com.ApplicationGoogleDrive.repository.AccessRequestRepository;
+import com.ApplicationGoogleDrive.security.AuthenticatedUser;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/files")
 @CrossOrigin(origins = "*")
 public class FileController {
 
+    private static final DateTimeFormatter ARCHIVE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
     @Autowired
     private FileService fileService;
 
     @Autowired
     private AccessRequestService accessRequestService;
 
-    @Autowired
-    private UserService userService;
-
     @Autowired
     private FileRepository fileRepository;
 
     @Autowired
     private AccessRequestRepository accessRequestRepository;
 
-    private final Path rootLocation = Paths.get("uploads");
+    @Autowired
+    private FileStreamingSupport fileStreamingSupport;
+
+    @Autowired
+    private AccessDecisionCache accessDecisionCache;
+
+    @Autowired
+    private ContentIndexingService contentIndexingService;
+
+    @Autowired
+    private RenditionService renditionService;
+
+    @Autowired
+    private StreamingUploadService streamingUploadService;
+
+    @Autowired
+    private BulkFileService bulkFileService;
+
+    @Autowired
+    private ZipDownloadService zipDownloadService;
+
+    @Autowired
+    private ConditionalResponses conditionalResponses;
+
+    @Autowired
+    private StorageUsageService storageUsageService;
+
+    @Autowired
+    private FileStatusResolver fileStatusResolver;
 
     // Upload un fichier
     @PostMapping("/upload")
@@ -54,11 +98,30 @@ public class FileController {
             @RequestParam("file") MultipartFile file,
             @RequestParam(value = "description", required = false) String description,
             @RequestParam(value = "isPublic", defaultValue = "false") boolean isPublic,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @RequestParam(value = "folderId", required = false) Long folderId,
+            @AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
+
+        try {
+            User currentUser = authenticatedUser.toUser();
+            File savedFile = fileService.saveFile(file, description, isPublic, currentUser, folderId);
+            return ResponseEntity.ok(savedFile);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Could not upload the file: " + e.getMessage()));
+        }
+    }
+
+    // Upload en flux : le corps multipart est lu directement, sans fichier temporaire du conteneur
+    @PostMapping("/upload/stream")
+    public ResponseEntity<?> streamUpload(HttpServletRequest request,
+                                          @AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
 
         try {
-            User currentUser = userService.findByEmail(userDetails.getUsername());
-            File savedFile = fileService.saveFile(file, description, isPublic, currentUser);
+            if (!streamingUploadService.isMultipart(request)) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Expected a multipart/form-data request"));
+            }
+            User currentUser = authenticatedUser.toUser();
+            File savedFile = streamingUploadService.ingest(request, currentUser);
             return ResponseEntity.ok(savedFile);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -66,37 +129,109 @@ public class FileController {
         }
     }
 
-    // Obtenir mes fichiers
+    // Upload instantané : copie d'un contenu que l'utilisateur a déjà envoyé, seules les métadonnées sont
+    // envoyées. 404 (même réponse que pour un contenu inconnu) s'il ne le possède pas : upload classique.
+    @PostMapping("/upload/instant")
+    public ResponseEntity<?> instantUpload(
+            @RequestParam("sha256") String sha256,
+            @RequestParam("fileSize") long fileSize,
+            @RequestParam("fileName") String fileName,
+            @RequestParam(value = "fileType", required = false) String fileType,
+            @RequestParam(value = "description", required = false) String description,
+            @RequestParam(value = "isPublic", defaultValue = "false") boolean isPublic,
+            @RequestParam(value = "folderId", required = false) Long folderId,
+            @AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
+
+        try {
+            User currentUser = authenticatedUser.toUser();
+            return fileService.saveFileFromExistingContent(sha256, fileSize, fileName, fileType,
+                            description, isPublic, currentUser, folderId)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(Map.of("error", "Content not found, upload the file bytes")));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Could not upload the file: " + e.getMessage()));
+        }
+    }
+
+    // Obtenir mes fichiers (paginé si cursor ou limit est fourni ; 304 si la liste n'a pas changé)
     @GetMapping("/my-files")
-    public ResponseEntity<List<File>> getMyFiles(@AuthenticationPrincipal UserDetails userDetails) {
-        User currentUser = userService.findByEmail(userDetails.getUsername());
-        List<File> files = fileService.getFilesByOwner(currentUser);
-        return ResponseEntity.ok(files);
+    public ResponseEntity<?> getMyFiles(ListingRequest listing,
+                                        @AuthenticationPrincipal AuthenticatedUser authenticatedUser,
+                                        HttpServletRequest request) {
+        try {
+            User currentUser = authenticatedUser.toUser();
+            return conditionalResponses.listing(request, currentUser.getId(), () -> listing.isPaged()
+                    ? fileService.getFilesByOwner(currentUser, listing)
+                    : fileService.getFilesByOwner(currentUser));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Espace utilisé, quota et répartition par type (compteurs maintenus, sans parcours des fichiers)
+    @GetMapping("/usage")
+    public ResponseEntity<?> getStorageUsage(@AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
+        User currentUser = authenticatedUser.toUser();
+        return ResponseEntity.ok(storageUsageService.getUsage(currentUser.getId()));
     }
 
     // Fichiers publics
     @GetMapping("/public")
-    public ResponseEntity<List<File>> getPublicFiles() {
-        List<File> files = fileService.getPublicFiles();
-        return ResponseEntity.ok(files);
+    public ResponseEntity<?> getPublicFiles(ListingRequest listing, HttpServletRequest request) {
+        try {
+            return conditionalResponses.listing(request, null, () -> listing.isPaged()
+                    ? fileService.getPublicFiles(listing)
+                    : fileService.getPublicFiles());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     // Fichiers visibles (publics + mes fichiers + fichiers avec accès approuvé)
     @GetMapping("/visible")
-    public ResponseEntity<List<File>> getVisibleFiles(@AuthenticationPrincipal UserDetails userDetails) {
-        User currentUser = userDetails != null ?
-                userService.findByEmail(userDetails.getUsername()) : null;
-        List<File> files = fileService.getVisibleFiles(currentUser);
-        return ResponseEntity.ok(files);
+    public ResponseEntity<?> getVisibleFiles(ListingRequest listing,
+                                             @AuthenticationPrincipal AuthenticatedUser authenticatedUser,
+                                             HttpServletRequest request) {
+        try {
+            User currentUser = authenticatedUser != null ? authenticatedUser.toUser() : null;
+            return conditionalResponses.listing(request, currentUser != null ? currentUser.getId() : null,
+                    () -> listing.isPaged()
+                            ? fileService.getVisibleFiles(currentUser, listing)
+                            : fileService.getVisibleFiles(currentUser));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Recherche par nom et description (préfixes, fautes de frappe) parmi les fichiers visibles,
+    // et dans le contenu extrait si content=true
+    @GetMapping("/search")
+    public ResponseEntity<?> searchFiles(@RequestParam("q") String query,
+                                         @RequestParam(value = "limit", defaultValue = "50") int limit,
+                                         @RequestParam(value = "content", defaultValue = "false") boolean content,
+                                         @AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
+        try {
+            User currentUser = authenticatedUser != null ? authenticatedUser.toUser() : null;
+            int boundedLimit = Math.max(1, Math.min(limit, ListingRequest.MAX_LIMIT));
+            List<File> files = fileService.searchFiles(query, currentUser, boundedLimit, content);
+            return ResponseEntity.ok(files);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     // Fichiers privés d'autres utilisateurs (pour demander l'accès)
     @GetMapping("/for-request")
-    public ResponseEntity<?> getFilesForAccessRequest(@AuthenticationPrincipal UserDetails userDetails) {
+    public ResponseEntity<?> getFilesForAccessRequest(ListingRequest listing,
+                                                      @AuthenticationPrincipal AuthenticatedUser authenticatedUser,
+                                                      HttpServletRequest request) {
         try {
-            User currentUser = userService.findByEmail(userDetails.getUsername());
-            List<Map<String, Object>> files = fileService.getAllOthersPrivateFilesWithStatus(currentUser);
-            return ResponseEntity.ok(files);
+            User currentUser = authenticatedUser.toUser();
+            return conditionalResponses.listing(request, currentUser.getId(), () -> listing.isPaged()
+                    ? fileService.getAllOthersPrivateFilesWithStatus(currentUser, listing)
+                    : fileService.getAllOthersPrivateFilesWithStatus(currentUser));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", e.getMessage()));
@@ -105,19 +240,31 @@ public class FileController {
 
     // Télécharger un fichier
     @GetMapping("/download/{id}")
-    public ResponseEntity<byte[]> downloadFile(@PathVariable("id") Long fileId,
-                                               @AuthenticationPrincipal UserDetails userDetails) {
+    public ResponseEntity<Resource> downloadFile(@PathVariable("id") Long fileId,
+                                                 @AuthenticationPrincipal AuthenticatedUser authenticatedUser,
+                                                 HttpServletRequest request) {
         try {
-            User currentUser = userService.findByEmail(userDetails.getUsername());
-            byte[] fileContent = fileService.getFileContent(fileId, currentUser);
+            User currentUser = authenticatedUser.toUser();
             File file = fileService.getFileWithAccessCheck(fileId, currentUser);
 
+            // Client à jour : 304 sans toucher au disque
             HttpHeaders headers = new HttpHeaders();
+            String etag = conditionalResponses.contentEtag(file, null, request);
+            conditionalResponses.applyContentHeaders(headers, file, etag);
+            headers.setLastModified(conditionalResponses.lastModified(file));
+            if (conditionalResponses.isNotModified(request, etag, conditionalResponses.lastModified(file))) {
+                return conditionalResponses.notModified(headers);
+            }
+
+            Path filePath = fileService.getStoredFilePath(file);
             headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
             headers.setContentDispositionFormData("attachment", file.getFileName());
-            headers.setContentLength(fileContent.length);
 
-            return new ResponseEntity<>(fileContent, headers, HttpStatus.OK);
+            if (file.getStorageEncoding() != null) {
+                return fileStreamingSupport.streamEncoded(filePath, file.getStorageEncoding(), file.getFileSize(),
+                        headers, request);
+            }
+            return fileStreamingSupport.stream(filePath, headers, request);
 
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -128,13 +275,37 @@ public class FileController {
         }
     }
 
-    // Prévisualiser un fichier
+    // Télécharger plusieurs fichiers en une archive ZIP produite en flux (ids=1,2,3)
+    @GetMapping("/download/zip")
+    public ResponseEntity<?> downloadArchive(@RequestParam("ids") List<Long> ids,
+                                             @AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
+        try {
+            User currentUser = authenticatedUser.toUser();
+            List<File> files = zipDownloadService.getFilesForArchive(ids, currentUser);
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.parseMediaType("application/zip"));
+            headers.setContentDispositionFormData("attachment",
+                    "files-" + LocalDateTime.now().format(ARCHIVE_DATE_FORMAT) + ".zip");
+            headers.setCacheControl(CacheControl.noStore());
+
+            StreamingResponseBody body = out -> zipDownloadService.writeArchive(files, out);
+            return new ResponseEntity<>(body, headers, HttpStatus.OK);
+
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Prévisualiser un fichier (size : miniature JPEG des images et de la première page des PDF)
     @GetMapping("/preview/{id}")
-    public ResponseEntity<byte[]> previewFile(@PathVariable("id") Long fileId,
-                                              @AuthenticationPrincipal UserDetails userDetails) {
+    public ResponseEntity<Resource> previewFile(@PathVariable("id") Long fileId,
+                                                @RequestParam(value = "size", required = false) Integer size,
+                                                @AuthenticationPrincipal AuthenticatedUser authenticatedUser,
+                                                HttpServletRequest request) {
         try {
-            User currentUser = userDetails != null ?
-                    userService.findByEmail(userDetails.getUsername()) : null;
+            User currentUser = authenticatedUser != null ? authenticatedUser.toUser() : null;
 
             File file = fileRepository.findById(fileId).orElse(null);
             if (file == null) {
@@ -150,9 +321,31 @@ public class FileController {
                 fileService.getFileWithAccessCheck(fileId, currentUser);
             }
 
-            byte[] fileContent = Files.readAllBytes(rootLocation.resolve(file.getFilePath()));
+            boolean rendition = size != null && renditionService.supports(file);
+            String variant = rendition ? "r" + renditionService.normalizeSize(size) : null;
 
+            // Client à jour : 304 sans lire le fichier ni générer la miniature
             HttpHeaders headers = new HttpHeaders();
+            String etag = conditionalResponses.contentEtag(file, variant, request);
+            conditionalResponses.applyContentHeaders(headers, file, etag);
+            headers.setLastModified(conditionalResponses.lastModified(file));
+            if (conditionalResponses.isNotModified(request, etag, conditionalResponses.lastModified(file))) {
+                return conditionalResponses.notModified(headers);
+            }
+
+            if (rendition) {
+                Optional<Path> renditionPath = renditionService.getRendition(file, size);
+                if (renditionPath.isPresent()) {
+                    headers.setContentType(MediaType.IMAGE_JPEG);
+                    return fileStreamingSupport.stream(renditionPath.get(), headers, request);
+                }
+                // Pas de miniature : l'original est envoyé, sous l'ETag de l'original
+                conditionalResponses.applyContentHeaders(headers, file,
+                        conditionalResponses.contentEtag(file, null, request));
+            }
+
+            Path filePath = fileService.getStoredFilePath(file);
+
             if (file.getFileType() != null) {
                 if (file.getFileType().contains("pdf")) {
                     headers.setContentType(MediaType.APPLICATION_PDF);
@@ -165,7 +358,11 @@ public class FileController {
                 headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
             }
 
-            return new ResponseEntity<>(fileContent, headers, HttpStatus.OK);
+            if (file.getStorageEncoding() != null) {
+                return fileStreamingSupport.streamEncoded(filePath, file.getStorageEncoding(), file.getFileSize(),
+                        headers, request);
+            }
+            return fileStreamingSupport.stream(filePath, headers, request);
 
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -177,10 +374,10 @@ public class FileController {
     public ResponseEntity<?> requestAccess(
             @PathVariable("id") Long fileId,
             @RequestParam(value = "message", required = false) String message,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
 
         try {
-            User currentUser = userService.findByEmail(userDetails.getUsername());
+            User currentUser = authenticatedUser.toUser();
             AccessRequest request = accessRequestService.createRequest(currentUser, fileId, message);
 
             Map<String, Object> response = new HashMap<>();
@@ -198,11 +395,10 @@ public class FileController {
     @GetMapping("/{id}/check-access")
     public ResponseEntity<?> checkAccess(
             @PathVariable("id") Long fileId,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
 
         try {
-            User currentUser = userDetails != null ?
-                    userService.findByEmail(userDetails.getUsername()) : null;
+            User currentUser = authenticatedUser != null ? authenticatedUser.toUser() : null;
 
             boolean hasAccess = fileService.canUserViewFile(fileId, currentUser);
 
@@ -221,10 +417,10 @@ public class FileController {
     @GetMapping("/{id}/can-request")
     public ResponseEntity<?> canRequestAccess(
             @PathVariable("id") Long fileId,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
 
         try {
-            User currentUser = userService.findByEmail(userDetails.getUsername());
+            User currentUser = authenticatedUser.toUser();
             boolean canRequest = fileService.canUserRequestAccess(fileId, currentUser);
 
             Map<String, Object> response = new HashMap<>();
@@ -242,10 +438,10 @@ public class FileController {
     @GetMapping("/{id}/has-requested")
     public ResponseEntity<?> hasRequestedAccess(
             @PathVariable("id") Long fileId,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
 
         try {
-            User currentUser = userService.findByEmail(userDetails.getUsername());
+            User currentUser = authenticatedUser.toUser();
             boolean hasRequested = accessRequestService.hasRequestedAccess(fileId, currentUser.getId());
 
             Map<String, Object> response = new HashMap<>();
@@ -262,9 +458,9 @@ public class FileController {
     // Supprimer un fichier
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteFile(@PathVariable Long id,
-                                        @AuthenticationPrincipal UserDetails userDetails) {
+                                        @AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
         try {
-            User currentUser = userService.findByEmail(userDetails.getUsername());
+            User currentUser = authenticatedUser.toUser();
             fileService.deleteFile(id, currentUser);
             return ResponseEntity.ok(Map.of("message", "File deleted successfully"));
         } catch (Exception e) {
@@ -273,43 +469,107 @@ public class FileController {
         }
     }
 
+    // Supprimer plusieurs fichiers (ids ou filtre) en une transaction, avec le résultat de chaque id
+    @PostMapping("/bulk/delete")
+    public ResponseEntity<?> deleteFiles(@RequestBody BulkFileRequest bulkRequest,
+                                         @AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
+        try {
+            User currentUser = authenticatedUser.toUser();
+            return ResponseEntity.ok(bulkFileService.deleteFiles(bulkRequest, currentUser));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Déplacer plusieurs fichiers vers un dossier (folderId dans le corps, absent : racine)
+    @PostMapping("/bulk/move")
+    public ResponseEntity<?> moveFiles(@RequestBody BulkFileRequest bulkRequest,
+                                       @AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
+        try {
+            User currentUser = authenticatedUser.toUser();
+            return ResponseEntity.ok(bulkFileService.moveFiles(bulkRequest, currentUser));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Rendre plusieurs fichiers publics ou privés (isPublic dans le corps)
+    @PostMapping("/bulk/visibility")
+    public ResponseEntity<?> updateVisibility(@RequestBody BulkFileRequest bulkRequest,
+                                              @AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
+        try {
+            User currentUser = authenticatedUser.toUser();
+            return ResponseEntity.ok(bulkFileService.updateVisibility(bulkRequest, currentUser));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Statut de plusieurs fichiers (propriété, visibilité, demande, actions permises) en un appel
+    @PostMapping("/status")
+    public ResponseEntity<?> getFileStatuses(@RequestBody FileStatusRequest statusRequest,
+                                             @AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
+        try {
+            List<Long> ids = statusRequest.getIds() != null ? statusRequest.getIds() : List.of();
+            if (ids.size() > FileStatusRequest.MAX_FILES) {
+                throw new RuntimeException("At most " + FileStatusRequest.MAX_FILES + " files per call");
+            }
+            User currentUser = authenticatedUser != null ? authenticatedUser.toUser() : null;
+            Map<Long, FileStatusResolver.FileStatus> statuses = fileStatusResolver.resolve(ids, currentUser);
+
+            List<Map<String, Object>> files = new ArrayList<>(statuses.size());
+            statuses.values().forEach(status -> files.add(fileStatusResolver.toMap(status)));
+            List<Long> missing = ids.stream().distinct().filter(id -> !statuses.containsKey(id)).toList();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("files", files);
+            response.put("missing", missing);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
     // Obtenir les informations d'un fichier spécifique
     @GetMapping("/{id}")
     public ResponseEntity<?> getFileInfo(
             @PathVariable("id") Long fileId,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
 
         try {
-            User currentUser = userDetails != null ?
-                    userService.findByEmail(userDetails.getUsername()) : null;
+            User currentUser = authenticatedUser != null ? authenticatedUser.toUser() : null;
 
-            File file = fileRepository.findById(fileId)
+            // Fichier, propriétaire, demande et accès en deux requêtes
+            FileStatusResolver.FileStatus status = fileStatusResolver.resolve(fileId, currentUser)
                     .orElseThrow(() -> new RuntimeException("File not found"));
+            FileStatusRow file = status.file();
 
             Map<String, Object> response = new HashMap<>();
             response.put("id", file.getId());
             response.put("fileName", file.getFileName());
             response.put("description", file.getDescription());
             response.put("isPublic", file.isPublic());
-            response.put("owner", file.getOwner().getEmail());
-            response.put("ownerName", file.getOwner().getFirstName() + " " + file.getOwner().getLastName());
+            response.put("owner", file.getOwnerEmail());
+            response.put("ownerName", status.ownerName());
             response.put("uploadedAt", file.getUploadedAt());
             response.put("fileType", file.getFileType());
             response.put("fileSize", file.getFileSize());
 
             // Ajouter des informations sur l'accès
             if (currentUser != null) {
-                response.put("isOwner", file.getOwner().getId().equals(currentUser.getId()));
-                response.put("hasAccess", fileService.canUserViewFile(fileId, currentUser));
-                response.put("canRequest", fileService.canUserRequestAccess(fileId, currentUser));
-
-                // Vérifier le statut de la demande
-                accessRequestRepository.findByFileIdAndRequesterId(fileId, currentUser.getId())
-                        .ifPresent(request -> {
-                            response.put("requestStatus", request.getStatus().toString());
-                            response.put("requestId", request.getId());
-                            response.put("requestMessage", request.getMessage());
-                        });
+                response.put("isOwner", status.owner());
+                response.put("hasAccess", status.hasAccess());
+                response.put("canRequest", status.canRequest());
+
+                if (status.hasRequest()) {
+                    response.put("requestStatus", file.getRequestStatus().toString());
+                    response.put("requestId", file.getRequestId());
+                    response.put("requestMessage", file.getRequestMessage());
+                }
             }
 
             return ResponseEntity.ok(response);
@@ -361,12 +621,27 @@ public class FileController {
         }
     }
 
+    // Statistiques du cache des décisions d'accès
+    @GetMapping("/debug/access-cache")
+    public ResponseEntity<?> getAccessCacheStatistics() {
+        return ResponseEntity.ok(accessDecisionCache.getStatistics());
+    }
+
+    // État de l'extraction et de l'index du contenu
+    @GetMapping("/debug/content-index")
+    public ResponseEntity<?> getContentIndexStatistics() {
+        return ResponseEntity.ok(contentIndexingService.getStatistics());
+    }
+
     @GetMapping("/others-private-with-status")
-    public ResponseEntity<?> getOthersPrivateFilesWithStatus(@AuthenticationPrincipal UserDetails userDetails) {
+    public ResponseEntity<?> getOthersPrivateFilesWithStatus(ListingRequest listing,
+                                                             @AuthenticationPrincipal AuthenticatedUser authenticatedUser,
+                                                             HttpServletRequest request) {
         try {
-            User currentUser = userService.findByEmail(userDetails.getUsername());
-            List<Map<String, Object>> filesWithStatus = fileService.getAllOthersPrivateFilesWithStatus(currentUser);
-            return ResponseEntity.ok(filesWithStatus);
+            User currentUser = authenticatedUser.toUser();
+            return conditionalResponses.listing(request, currentUser.getId(), () -> listing.isPaged()
+                    ? fileService.getAllOthersPrivateFilesWithStatus(currentUser, listing)
+                    : fileService.getAllOthersPrivateFilesWithStatus(currentUser));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", "Error fetching private files: " + e.getMessage()));
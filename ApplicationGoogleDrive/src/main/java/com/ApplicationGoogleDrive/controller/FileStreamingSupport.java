@@ -0,0 +1,168 @@
+package com.ApplicationGoogleDrive.controller;
+
+import com.ApplicationGoogleDrive.service.ContentStoreService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.List;
+
+// Diffusion du contenu des fichiers depuis le disque avec une mémoire constante par requête
+@Component
+public class FileStreamingSupport {
+
+    // Attributs de requête reconnus par le connecteur NIO de Tomcat (sendfile / FileChannel.transferTo)
+    static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    // En dessous de ce seuil, une copie classique coûte moins cher que le sendfile
+    @Value("${files.streaming.sendfile-threshold:49152}")
+    private long sendfileThreshold;
+
+    public ResponseEntity<Resource> stream(Path path, HttpHeaders headers, HttpServletRequest request) throws IOException {
+        long length = Files.size(path);
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (headers.getLastModified() < 0) {
+            headers.setLastModified(Files.getLastModifiedTime(path).toMillis());
+        }
+
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null) {
+            return full(path, length, headers, request, false);
+        }
+
+        // If-Range ne correspond plus : la ressource a changé, on renvoie tout le contenu
+        if (!isIfRangeSatisfied(request, headers)) {
+            return full(path, length, headers, request, true);
+        }
+
+        // Une seule plage : le conteneur peut l'envoyer directement depuis le disque
+        // (plage commençant après la fin du fichier : Spring répond 416 ci-dessous)
+        HttpRange singleRange = parseSingleRange(rangeHeader);
+        if (singleRange != null && length >= sendfileThreshold && isSendfileSupported(request)) {
+            long start = singleRange.getRangeStart(length);
+            long end = singleRange.getRangeEnd(length);
+            if (start < length && start <= end) {
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+                return sendfile(path, start, end + 1, headers, request, HttpStatus.PARTIAL_CONTENT);
+            }
+        }
+
+        // Plages multiples (multipart/byteranges) ou plage invalide (416) : Spring lit uniquement
+        // les fenêtres demandées via ResourceRegion
+        return new ResponseEntity<>(new FileSystemResource(path), headers, HttpStatus.OK);
+    }
+
+    // Contenu stocké compressé : envoyé tel quel avec Content-Encoding si le client l'accepte
+    // (aucun travail CPU côté serveur), sinon décompressé à la volée, sans plages.
+    public ResponseEntity<Resource> streamEncoded(Path path, String encoding, long decodedLength, HttpHeaders headers,
+                                                  HttpServletRequest request) throws IOException {
+        headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        if (acceptsEncoding(request, encoding)) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, encoding);
+            return stream(path, headers, request);
+        }
+
+        headers.set(HttpHeaders.ACCEPT_RANGES, "none");
+        if (headers.getLastModified() < 0) {
+            headers.setLastModified(Files.getLastModifiedTime(path).toMillis());
+        }
+        headers.setContentLength(decodedLength);
+        InputStream decoded = ContentStoreService.decode(Files.newInputStream(path), encoding);
+        return new ResponseEntity<>(new InputStreamResource(decoded), headers, HttpStatus.OK);
+    }
+
+    // Accept-Encoding: gzip, deflate;q=0.5... (un q=0 désactive l'encodage)
+    boolean acceptsEncoding(HttpServletRequest request, String encoding) {
+        Enumeration<String> values = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+        while (values != null && values.hasMoreElements()) {
+            for (String candidate : values.nextElement().split(",")) {
+                String[] parts = candidate.trim().split(";");
+                if (parts[0].trim().equalsIgnoreCase(encoding)) {
+                    for (int i = 1; i < parts.length; i++) {
+                        String parameter = parts[i].trim().replace(" ", "");
+                        if (parameter.equals("q=0") || parameter.matches("q=0\\.0*")) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private ResponseEntity<Resource> full(Path path, long length, HttpHeaders headers,
+                                          HttpServletRequest request, boolean ignoreRange) throws IOException {
+        if (length >= sendfileThreshold && isSendfileSupported(request)) {
+            return sendfile(path, 0L, length, headers, request, HttpStatus.OK);
+        }
+
+        if (ignoreRange) {
+            // InputStreamResource n'est pas découpé par Spring, contrairement à FileSystemResource
+            headers.setContentLength(length);
+            return new ResponseEntity<>(new InputStreamResource(Files.newInputStream(path)), headers, HttpStatus.OK);
+        }
+
+        // Spring copie le flux par blocs, sans jamais charger tout le fichier
+        return new ResponseEntity<>(new FileSystemResource(path), headers, HttpStatus.OK);
+    }
+
+    private ResponseEntity<Resource> sendfile(Path path, long start, long end, HttpHeaders headers,
+                                              HttpServletRequest request, HttpStatus status) {
+        // Le conteneur envoie le fichier lui-même (zéro copie) : aucun corps n'est écrit ici
+        headers.setContentLength(end - start);
+        request.setAttribute(SENDFILE_FILENAME_ATTR, path.toAbsolutePath().toString());
+        request.setAttribute(SENDFILE_START_ATTR, start);
+        request.setAttribute(SENDFILE_END_ATTR, end);
+        return new ResponseEntity<>(headers, status);
+    }
+
+    private HttpRange parseSingleRange(String rangeHeader) {
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // If-Range n'accepte que des validateurs forts : ETag exact ou date Last-Modified identique
+    private boolean isIfRangeSatisfied(HttpServletRequest request, HttpHeaders headers) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            String etag = headers.getETag();
+            return etag != null && !etag.startsWith("W/") && etag.equals(ifRange);
+        }
+
+        try {
+            long ifRangeDate = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return headers.getLastModified() / 1000 == ifRangeDate / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private boolean isSendfileSupported(HttpServletRequest request) {
+        return "GET".equals(request.getMethod())
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR));
+    }
+}
@@ -0,0 +1,133 @@
+package com.ApplicationGoogleDrive.controller;
+
+import com.ApplicationGoogleDrive.dto.FolderRequest;
+import com.ApplicationGoogleDrive.dto.ListingRequest;
+import com.ApplicationGoogleDrive.model.Folder;
+import com.ApplicationGoogleDrive.model.User;
+import com.ApplicationGoogleDrive.security.AuthenticatedUser;
+import com.ApplicationGoogleDrive.service.BulkFileService;
+import com.ApplicationGoogleDrive.service.FileService;
+import com.ApplicationGoogleDrive.service.FolderService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/folders")
+@CrossOrigin(origins = "*")
+public class FolderController {
+
+    @Autowired
+    private FolderService folderService;
+
+    @Autowired
+    private FileService fileService;
+
+    @Autowired
+    private BulkFileService bulkFileService;
+
+    @Autowired
+    private ConditionalResponses conditionalResponses;
+
+    // Créer un dossier
+    @PostMapping
+    public ResponseEntity<?> createFolder(@RequestBody FolderRequest folderRequest,
+                                          @AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
+        try {
+            User currentUser = authenticatedUser.toUser();
+            Folder folder = folderService.createFolder(folderRequest.getName(), folderRequest.getParentId(), currentUser);
+            return ResponseEntity.ok(folder);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Ouvrir un dossier (folderId absent : racine) : sous-dossiers et première page de fichiers.
+    // recursive=true liste les fichiers de tout le sous-arbre.
+    @GetMapping("/contents")
+    public ResponseEntity<?> getContents(@RequestParam(value = "folderId", required = false) Long folderId,
+                                         @RequestParam(value = "recursive", defaultValue = "false") boolean recursive,
+                                         ListingRequest listing,
+                                         @AuthenticationPrincipal AuthenticatedUser authenticatedUser,
+                                         HttpServletRequest request) {
+        try {
+            User currentUser = authenticatedUser.toUser();
+            return conditionalResponses.listing(request, currentUser.getId(), () -> {
+                Map<String, Object> contents = new LinkedHashMap<>();
+                if (folderId != null) {
+                    contents.putAll(folderService.getFolderDetails(folderId, currentUser));
+                }
+                // Les sous-dossiers ne sont renvoyés qu'avec la première page de fichiers
+                if (listing.getCursor() == null) {
+                    contents.put("folders", folderService.getChildFolders(folderId, currentUser));
+                }
+                contents.put("files", fileService.getFilesInFolder(currentUser, folderId, recursive, listing));
+                return contents;
+            });
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Informations d'un dossier : cumuls (fileCount, totalSize) et fil d'Ariane
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getFolder(@PathVariable Long id,
+                                       @AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
+        try {
+            User currentUser = authenticatedUser.toUser();
+            return ResponseEntity.ok(folderService.getFolderDetails(id, currentUser));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Renommer un dossier
+    @PutMapping("/{id}/rename")
+    public ResponseEntity<?> renameFolder(@PathVariable Long id,
+                                          @RequestParam String name,
+                                          @AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
+        try {
+            User currentUser = authenticatedUser.toUser();
+            return ResponseEntity.ok(folderService.renameFolder(id, name, currentUser));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Déplacer un dossier et tout son contenu (parentId absent : vers la racine)
+    @PutMapping("/{id}/move")
+    public ResponseEntity<?> moveFolder(@PathVariable Long id,
+                                        @RequestParam(value = "parentId", required = false) Long parentId,
+                                        @AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
+        try {
+            User currentUser = authenticatedUser.toUser();
+            return ResponseEntity.ok(folderService.moveFolder(id, parentId, currentUser));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Supprimer un dossier avec ses sous-dossiers et ses fichiers
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> deleteFolder(@PathVariable Long id,
+                                          @AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
+        try {
+            User currentUser = authenticatedUser.toUser();
+            return ResponseEntity.ok(bulkFileService.deleteFolder(id, currentUser));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+}
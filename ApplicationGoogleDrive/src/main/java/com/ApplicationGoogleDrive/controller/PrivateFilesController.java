@@ -1,23 +1,20 @@
 package com.ApplicationGoogleDrive.controller;
 
-import com.ApplicationGoogleDrive.model.File;
+import com.ApplicationGoogleDrive.dto.FileStatusRow;
 import com.ApplicationGoogleDrive.model.User;
 import com.ApplicationGoogleDrive.model.AccessRequest;
 import com.ApplicationGoogleDrive.service.FileService;
-import com.ApplicationGoogleDrive.service.UserService;
-import com.ApplicationGoogleDrive.repository.FileRepository;
-import com.ApplicationGoogleDrive.repository.AccessRequestRepository;
+import com.ApplicationGoogleDrive.service.FileStatusResolver;
+import com.ApplicationGoogleDrive.security.AuthenticatedUser;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/private-files")
@@ -25,22 +22,16 @@ import java.util.Optional;
 public class PrivateFilesController {
 
     @Autowired
-    private FileRepository fileRepository;
-
-    @Autowired
-    private AccessRequestRepository accessRequestRepository;
-
-    @Autowired
-    private UserService userService;
+    private FileService fileService;
 
     @Autowired
-    private FileService fileService;
+    private FileStatusResolver fileStatusResolver;
 
     // Afficher tous les fichiers privés d'autres utilisateurs
     @GetMapping("/others")
-    public ResponseEntity<?> getOthersPrivateFiles(@AuthenticationPrincipal UserDetails userDetails) {
+    public ResponseEntity<?> getOthersPrivateFiles(@AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
         try {
-            User currentUser = userService.findByEmail(userDetails.getUsername());
+            User currentUser = authenticatedUser.toUser();
             List<Map<String, Object>> filesList = fileService.getAllOthersPrivateFilesWithStatus(currentUser);
             return ResponseEntity.ok(filesList);
         } catch (Exception e) {
@@ -53,12 +44,14 @@ public class PrivateFilesController {
     @GetMapping("/{fileId}")
     public ResponseEntity<?> getPrivateFileDetails(
             @PathVariable Long fileId,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
 
         try {
-            User currentUser = userService.findByEmail(userDetails.getUsername());
-            File file = fileRepository.findById(fileId)
+            User currentUser = authenticatedUser.toUser();
+            // Fichier, propriétaire, demande et accès en deux requêtes
+            FileStatusResolver.FileStatus status = fileStatusResolver.resolve(fileId, currentUser)
                     .orElseThrow(() -> new RuntimeException("File not found"));
+            FileStatusRow file = status.file();
 
             // Vérifier si c'est un fichier privé
             if (file.isPublic()) {
@@ -67,7 +60,7 @@ public class PrivateFilesController {
             }
 
             // Vérifier si l'utilisateur n'est pas le propriétaire
-            if (file.getOwner().getId().equals(currentUser.getId())) {
+            if (status.owner()) {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                         .body(Map.of("error", "This is your own file"));
             }
@@ -79,42 +72,23 @@ public class PrivateFilesController {
             response.put("fileSize", file.getFileSize());
             response.put("fileType", file.getFileType());
             response.put("uploadedAt", file.getUploadedAt());
-            response.put("ownerEmail", file.getOwner().getEmail());
-            response.put("ownerName", file.getOwner().getFirstName() + " " + file.getOwner().getLastName());
+            response.put("ownerEmail", file.getOwnerEmail());
+            response.put("ownerName", status.ownerName());
             response.put("isPublic", false);
             response.put("isOwner", false);
 
-            // Vérifier l'état de la demande
-            Optional<AccessRequest> existingRequest = accessRequestRepository
-                    .findByFileIdAndRequesterId(fileId, currentUser.getId());
-
-            if (existingRequest.isPresent()) {
-                AccessRequest request = existingRequest.get();
-                response.put("hasRequested", true);
-                response.put("requestStatus", request.getStatus().toString());
-                response.put("requestId", request.getId());
-                response.put("requestMessage", request.getMessage());
-                response.put("requestedAt", request.getRequestedAt());
-                response.put("respondedAt", request.getRespondedAt());
-
-                if (request.getStatus() == AccessRequest.RequestStatus.APPROVED) {
-                    response.put("hasAccess", true);
-                    response.put("canDownload", true);
-                    response.put("canRequest", false);
-                } else if (request.getStatus() == AccessRequest.RequestStatus.PENDING) {
-                    response.put("hasAccess", false);
-                    response.put("canDownload", false);
-                    response.put("canRequest", false);
-                } else {
-                    response.put("hasAccess", false);
-                    response.put("canDownload", false);
-                    response.put("canRequest", true);
-                }
+            // État de la demande
+            response.put("hasRequested", status.hasRequest());
+            response.put("hasAccess", status.hasAccess());
+            response.put("canDownload", status.hasAccess());
+            response.put("canRequest", status.canRequest());
+            if (status.hasRequest()) {
+                response.put("requestStatus", file.getRequestStatus().toString());
+                response.put("requestId", file.getRequestId());
+                response.put("requestMessage", file.getRequestMessage());
+                response.put("requestedAt", file.getRequestedAt());
+                response.put("respondedAt", file.getRespondedAt());
             } else {
-                response.put("hasRequested", false);
-                response.put("hasAccess", false);
-                response.put("canDownload", false);
-                response.put("canRequest", true);
                 response.put("requestStatus", "NO_REQUEST");
             }
 
@@ -130,17 +104,17 @@ public class PrivateFilesController {
     @GetMapping("/{fileId}/quick-check")
     public ResponseEntity<?> quickCheckFile(
             @PathVariable Long fileId,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
 
         try {
-            User currentUser = userService.findByEmail(userDetails.getUsername());
-            File file = fileRepository.findById(fileId)
+            User currentUser = authenticatedUser.toUser();
+            FileStatusResolver.FileStatus status = fileStatusResolver.resolve(fileId, currentUser)
                     .orElseThrow(() -> new RuntimeException("File not found"));
 
             Map<String, Object> response = new HashMap<>();
 
             // Si c'est le fichier de l'utilisateur
-            if (file.getOwner().getId().equals(currentUser.getId())) {
+            if (status.owner()) {
                 response.put("isOwner", true);
                 response.put("canRequest", false);
                 response.put("message", "This is your own file");
@@ -148,40 +122,29 @@ public class PrivateFilesController {
             }
 
             // Si le fichier est public
-            if (file.isPublic()) {
+            if (status.file().isPublic()) {
                 response.put("isPublic", true);
                 response.put("canRequest", false);
                 response.put("message", "This file is public");
                 return ResponseEntity.ok(response);
             }
 
-            // Vérifier les demandes existantes
-            Optional<AccessRequest> existingRequest = accessRequestRepository
-                    .findByFileIdAndRequesterId(fileId, currentUser.getId());
-
-            if (existingRequest.isPresent()) {
-                AccessRequest request = existingRequest.get();
-                response.put("hasRequested", true);
-                response.put("requestStatus", request.getStatus().toString());
-
-                if (request.getStatus() == AccessRequest.RequestStatus.APPROVED) {
-                    response.put("hasAccess", true);
-                    response.put("canRequest", false);
+            // Demande existante
+            response.put("hasRequested", status.hasRequest());
+            response.put("hasAccess", status.hasAccess());
+            response.put("canRequest", status.canRequest());
+            if (!status.hasRequest()) {
+                response.put("message", "You can request access to this file");
+            } else {
+                AccessRequest.RequestStatus requestStatus = status.file().getRequestStatus();
+                response.put("requestStatus", requestStatus.toString());
+                if (requestStatus == AccessRequest.RequestStatus.APPROVED) {
                     response.put("message", "Your access request has been approved");
-                } else if (request.getStatus() == AccessRequest.RequestStatus.PENDING) {
-                    response.put("hasAccess", false);
-                    response.put("canRequest", false);
+                } else if (requestStatus == AccessRequest.RequestStatus.PENDING) {
                     response.put("message", "Your request is pending approval");
                 } else {
-                    response.put("hasAccess", false);
-                    response.put("canRequest", true);
                     response.put("message", "Your previous request was rejected. You can request again");
                 }
-            } else {
-                response.put("hasRequested", false);
-                response.put("hasAccess", false);
-                response.put("canRequest", true);
-                response.put("message", "You can request access to this file");
             }
 
             return ResponseEntity.ok(response);
@@ -191,4 +154,4 @@ public class PrivateFilesController {
                     .body(Map.of("error", e.getMessage()));
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,137 @@
+package com.ApplicationGoogleDrive.controller;
+
+import com.ApplicationGoogleDrive.model.File;
+import com.ApplicationGoogleDrive.model.UploadSession;
+import com.ApplicationGoogleDrive.model.User;
+import com.ApplicationGoogleDrive.service.UploadSessionService;
+import com.ApplicationGoogleDrive.security.AuthenticatedUser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/uploads")
+@CrossOrigin(origins = "*")
+public class UploadSessionController {
+
+    @Autowired
+    private UploadSessionService uploadSessionService;
+
+    // Créer une session d'upload par morceaux
+    @PostMapping
+    public ResponseEntity<?> createSession(
+            @RequestParam("fileName") String fileName,
+            @RequestParam("fileSize") long fileSize,
+            @RequestParam(value = "chunkSize", defaultValue = "8388608") int chunkSize,
+            @RequestParam(value = "fileType", required = false) String fileType,
+            @RequestParam(value = "description", required = false) String description,
+            @RequestParam(value = "isPublic", defaultValue = "false") boolean isPublic,
+            @RequestParam(value = "folderId", required = false) Long folderId,
+            @AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
+
+        try {
+            User currentUser = authenticatedUser.toUser();
+            UploadSession session = uploadSessionService.createSession(
+                    fileName, fileType, fileSize, chunkSize, description, isPublic, currentUser, folderId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("sessionId", session.getId());
+            response.put("chunkSize", session.getChunkSize());
+            response.put("totalChunks", session.getTotalChunks());
+            response.put("expiresAt", session.getExpiresAt());
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Envoyer un morceau (corps brut, dans n'importe quel ordre, éventuellement en parallèle)
+    @PutMapping("/{sessionId}/chunks/{index}")
+    public ResponseEntity<?> uploadChunk(
+            @PathVariable String sessionId,
+            @PathVariable int index,
+            InputStream body,
+            @AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
+
+        try {
+            User currentUser = authenticatedUser.toUser();
+            long written = uploadSessionService.writeChunk(sessionId, index, body, currentUser);
+            return ResponseEntity.ok(Map.of("index", index, "size", written));
+
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // État de la session : morceaux reçus et offset contigu pour reprendre
+    @GetMapping("/{sessionId}")
+    public ResponseEntity<?> getSessionStatus(
+            @PathVariable String sessionId,
+            @AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
+
+        try {
+            User currentUser = authenticatedUser.toUser();
+            UploadSession session = uploadSessionService.getSession(sessionId, currentUser);
+            List<Integer> receivedChunks = uploadSessionService.getReceivedChunks(session);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("sessionId", session.getId());
+            response.put("fileName", session.getFileName());
+            response.put("fileSize", session.getTotalSize());
+            response.put("chunkSize", session.getChunkSize());
+            response.put("totalChunks", session.getTotalChunks());
+            response.put("receivedChunks", receivedChunks);
+            response.put("receivedOffset", uploadSessionService.getContiguousOffset(session, receivedChunks));
+            response.put("expiresAt", session.getExpiresAt());
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Assembler les morceaux et créer le fichier
+    @PostMapping("/{sessionId}/complete")
+    public ResponseEntity<?> completeSession(
+            @PathVariable String sessionId,
+            @AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
+
+        try {
+            User currentUser = authenticatedUser.toUser();
+            File savedFile = uploadSessionService.finalizeSession(sessionId, currentUser);
+            return ResponseEntity.ok(savedFile);
+
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Annuler une session
+    @DeleteMapping("/{sessionId}")
+    public ResponseEntity<?> cancelSession(
+            @PathVariable String sessionId,
+            @AuthenticationPrincipal AuthenticatedUser authenticatedUser) {
+
+        try {
+            User currentUser = authenticatedUser.toUser();
+            uploadSessionService.cancelSession(sessionId, currentUser);
+            return ResponseEntity.ok(Map.of("message", "Upload session cancelled"));
+
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+}
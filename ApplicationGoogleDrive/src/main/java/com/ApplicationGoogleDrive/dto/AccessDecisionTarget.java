@@ -0,0 +1,16 @@
+package com.ApplicationGoogleDrive.dto;
+
+import com.ApplicationGoogleDrive.model.AccessRequest;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Champs d'une demande d'accès nécessaires aux décisions groupées (chargés sans les entités liées)
+@Data
+@AllArgsConstructor
+public class AccessDecisionTarget {
+    private Long id;
+    private Long ownerId;
+    private Long fileId;
+    private Long requesterId;
+    private AccessRequest.RequestStatus status;
+}
@@ -0,0 +1,20 @@
+package com.ApplicationGoogleDrive.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+// Décision groupée sur des demandes d'accès : une liste d'ids, ou toutes les demandes en attente d'un fichier
+@Data
+public class BulkDecisionRequest {
+    public static final int MAX_REQUESTS = 10000;
+
+    private List<Long> ids;
+
+    // Utilisé si ids est vide
+    private Long fileId;
+
+    public boolean hasIds() {
+        return ids != null && !ids.isEmpty();
+    }
+}
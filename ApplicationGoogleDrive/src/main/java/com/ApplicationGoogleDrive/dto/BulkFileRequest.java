@@ -0,0 +1,32 @@
+package com.ApplicationGoogleDrive.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+// Sélection d'une opération groupée : une liste d'ids, ou un filtre sur les fichiers de l'utilisateur
+@Data
+public class BulkFileRequest {
+    public static final int MAX_FILES = 10000;
+
+    private List<Long> ids;
+
+    // Filtre (si ids est vide) : nom contenant q, type MIME commençant par type
+    private String q;
+    private String type;
+
+    // Nouvelle visibilité (changement de visibilité uniquement)
+    private Boolean isPublic;
+
+    // Dossier de destination (déplacement uniquement, null : racine)
+    private Long folderId;
+
+    public boolean hasIds() {
+        return ids != null && !ids.isEmpty();
+    }
+
+    // Sans ids ni filtre, rien n'est sélectionné : pas de suppression de tous les fichiers par accident
+    public boolean hasFilter() {
+        return (q != null && !q.isBlank()) || (type != null && !type.isBlank());
+    }
+}
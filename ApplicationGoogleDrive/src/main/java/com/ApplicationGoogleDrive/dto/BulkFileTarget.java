@@ -0,0 +1,18 @@
+package com.ApplicationGoogleDrive.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Champs d'un fichier nécessaires aux opérations groupées (chargés sans le propriétaire complet)
+@Data
+@AllArgsConstructor
+public class BulkFileTarget {
+    private Long id;
+    private Long ownerId;
+    private boolean isPublic;
+    private String contentHash;
+    private String filePath;
+    private Long folderId;
+    private Long fileSize;
+    private String fileType;
+}
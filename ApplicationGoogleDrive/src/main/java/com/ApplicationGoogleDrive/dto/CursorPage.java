@@ -0,0 +1,15 @@
+package com.ApplicationGoogleDrive.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+// Page d'une liste parcourue par curseur : nextCursor est à renvoyer tel quel pour la page suivante
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+}
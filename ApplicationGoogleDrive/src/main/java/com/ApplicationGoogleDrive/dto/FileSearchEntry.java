@@ -0,0 +1,15 @@
+package com.ApplicationGoogleDrive.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Champs d'un fichier nécessaires à l'index de recherche (chargés sans le propriétaire complet)
+@Data
+@AllArgsConstructor
+public class FileSearchEntry {
+    private Long id;
+    private String fileName;
+    private String description;
+    private Long ownerId;
+    private boolean isPublic;
+}
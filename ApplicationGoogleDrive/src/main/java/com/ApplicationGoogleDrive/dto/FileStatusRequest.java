@@ -0,0 +1,13 @@
+package com.ApplicationGoogleDrive.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+// Statut de plusieurs fichiers pour l'utilisateur courant (cartes de fichiers affichées ensemble)
+@Data
+public class FileStatusRequest {
+    public static final int MAX_FILES = 500;
+
+    private List<Long> ids;
+}
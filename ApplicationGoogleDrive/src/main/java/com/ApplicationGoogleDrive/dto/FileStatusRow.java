@@ -0,0 +1,29 @@
+package com.ApplicationGoogleDrive.dto;
+
+import com.ApplicationGoogleDrive.model.AccessRequest;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Projection à plat d'un fichier, de son propriétaire et de la demande de l'utilisateur courant (tout fichier)
+@Data
+@AllArgsConstructor
+public class FileStatusRow {
+    private Long id;
+    private String fileName;
+    private String description;
+    private Long fileSize;
+    private String fileType;
+    private LocalDateTime uploadedAt;
+    private boolean isPublic;
+    private Long ownerId;
+    private String ownerEmail;
+    private String ownerFirstName;
+    private String ownerLastName;
+    private Long requestId;
+    private AccessRequest.RequestStatus requestStatus;
+    private String requestMessage;
+    private LocalDateTime requestedAt;
+    private LocalDateTime respondedAt;
+}
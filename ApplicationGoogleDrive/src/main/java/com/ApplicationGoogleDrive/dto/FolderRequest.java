@@ -0,0 +1,10 @@
+package com.ApplicationGoogleDrive.dto;
+
+import lombok.Data;
+
+// Création d'un dossier (parentId null : à la racine)
+@Data
+public class FolderRequest {
+    private String name;
+    private Long parentId;
+}
@@ -0,0 +1,38 @@
+package com.ApplicationGoogleDrive.dto;
+
+import lombok.Data;
+
+// Paramètres de pagination par curseur, de tri et de filtre des listes (liés depuis la query string)
+@Data
+public class ListingRequest {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    private String cursor;
+    private Integer limit;
+    private String sort;
+    private String direction;
+
+    // Filtres des listes de fichiers
+    private String q;
+    private String type;
+
+    // Filtre des listes de demandes
+    private String status;
+
+    // Sans curseur ni limite, les endpoints gardent leur ancienne réponse (liste complète)
+    public boolean isPaged() {
+        return cursor != null || limit != null;
+    }
+
+    public int pageSize() {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    public boolean isAscending() {
+        return "asc".equalsIgnoreCase(direction);
+    }
+}
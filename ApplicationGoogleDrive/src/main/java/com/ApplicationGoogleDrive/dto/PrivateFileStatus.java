@@ -0,0 +1,26 @@
+package com.ApplicationGoogleDrive.dto;
+
+import com.ApplicationGoogleDrive.model.AccessRequest;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Projection à plat d'un fichier privé, de son propriétaire et de la demande de l'utilisateur courant
+@Data
+@AllArgsConstructor
+public class PrivateFileStatus {
+    private Long id;
+    private String fileName;
+    private String description;
+    private Long fileSize;
+    private String fileType;
+    private LocalDateTime uploadedAt;
+    private String ownerEmail;
+    private String ownerFirstName;
+    private String ownerLastName;
+    private Long requestId;
+    private AccessRequest.RequestStatus requestStatus;
+    private String requestMessage;
+    private LocalDateTime requestedAt;
+}
@@ -0,0 +1,13 @@
+package com.ApplicationGoogleDrive.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Nombre et taille totale des fichiers d'un utilisateur pour un type MIME (réconciliation des compteurs)
+@Data
+@AllArgsConstructor
+public class UsageAggregate {
+    private String fileType;
+    private Long fileCount;
+    private Long bytes;
+}
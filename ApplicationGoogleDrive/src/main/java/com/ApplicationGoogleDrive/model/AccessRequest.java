@@ -5,7 +5,11 @@ import lombok.Data;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "access_requests")
+@Table(name = "access_requests", indexes = {
+        @Index(name = "idx_access_requests_file_requester", columnList = "file_id, requester_id"),
+        @Index(name = "idx_access_requests_owner_requested", columnList = "owner_id, requestedAt, id"),
+        @Index(name = "idx_access_requests_requester_requested", columnList = "requester_id, requestedAt, id")
+})
 @Data
 public class AccessRequest {
     @Id
@@ -5,7 +5,12 @@ import lombok.Data;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "files")
+@Table(name = "files", indexes = {
+        @Index(name = "idx_files_owner_uploaded", columnList = "owner_id, uploadedAt, id"),
+        @Index(name = "idx_files_public_uploaded", columnList = "isPublic, uploadedAt, id"),
+        @Index(name = "idx_files_folder_uploaded", columnList = "folder_id, uploadedAt, id"),
+        @Index(name = "idx_files_owner_hash", columnList = "owner_id, contentHash")
+})
 @Data
 public class File {
     @Id
@@ -17,12 +22,24 @@ public class File {
     private String filePath;
     private Long fileSize;
 
+    // Empreinte SHA-256 du contenu partagé (null pour les fichiers stockés avant la déduplication)
+    @Column(length = 64)
+    private String contentHash;
+
+    // Encodage des octets stockés ("gzip") ; fileSize reste la taille d'origine
+    @Column(length = 16)
+    private String storageEncoding;
+
     @ManyToOne
     @JoinColumn(name = "owner_id")
     private User owner;
 
     private boolean isPublic = false;
 
+    // Dossier du propriétaire contenant le fichier (null : racine)
+    @Column(name = "folder_id")
+    private Long folderId;
+
     @Column(columnDefinition = "TEXT")
     private String description;
 
@@ -0,0 +1,30 @@
+package com.ApplicationGoogleDrive.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+// Texte extrait du contenu d'un fichier, conservé pour reconstruire l'index sans tout réextraire
+@Entity
+@Table(name = "file_contents")
+@Data
+public class FileContent {
+    @Id
+    @Column(name = "file_id")
+    private Long fileId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ExtractionStatus status;
+
+    @Column(columnDefinition = "LONGTEXT")
+    private String text;
+
+    private LocalDateTime extractedAt;
+
+    public enum ExtractionStatus {
+        EXTRACTED,
+        UNSUPPORTED,
+        FAILED
+    }
+}
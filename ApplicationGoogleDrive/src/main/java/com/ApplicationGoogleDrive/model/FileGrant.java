@@ -0,0 +1,26 @@
+package com.ApplicationGoogleDrive.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+// Accès accordé à un utilisateur sur un fichier privé (une ligne par demande approuvée).
+// Table compacte, séparée de l'historique des demandes, interrogée par index (file_id, user_id).
+@Entity
+@Table(name = "file_grants",
+        uniqueConstraints = @UniqueConstraint(name = "uk_file_grants_file_user", columnNames = {"file_id", "user_id"}),
+        indexes = @Index(name = "idx_file_grants_user_file", columnList = "user_id, file_id"))
+@Data
+public class FileGrant {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "file_id", nullable = false)
+    private Long fileId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    private LocalDateTime grantedAt;
+}
@@ -0,0 +1,58 @@
+package com.ApplicationGoogleDrive.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+// Dossier d'un utilisateur. Le chemin matérialisé ("/12/45/78/", ids depuis la racine jusqu'au dossier)
+// permet de lister un sous-arbre par préfixe sur un index, sans parcours récursif.
+@Entity
+@Table(name = "folders", indexes = {
+        @Index(name = "idx_folders_owner_parent_name", columnList = "owner_id, parent_id, name"),
+        @Index(name = "idx_folders_path", columnList = "path")
+}, uniqueConstraints = @UniqueConstraint(
+        name = "uk_folders_owner_parent_name", columnNames = {"owner_id", "parent_key", "name"}))
+@Data
+public class Folder {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    // null pour un dossier à la racine
+    @Column(name = "parent_id")
+    private Long parentId;
+
+    // Parent pour l'unicité des noms (0 à la racine : deux NULL ne sont jamais en conflit dans un index
+    // unique). Calculée par la base, y compris lors des déplacements par UPDATE.
+    @JsonIgnore
+    @Column(name = "parent_key", insertable = false, updatable = false,
+            columnDefinition = "BIGINT GENERATED ALWAYS AS (COALESCE(parent_id, 0))")
+    private Long parentKey;
+
+    @Column(nullable = false, length = 700)
+    private String path;
+
+    @Column(nullable = false)
+    private Integer depth;
+
+    // Cumuls du sous-arbre : fichiers de ce dossier et de tous ses descendants
+    @Column(nullable = false)
+    private Long fileCount = 0L;
+
+    @Column(nullable = false)
+    private Long totalSize = 0L;
+
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,39 @@
+package com.ApplicationGoogleDrive.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+// Compteurs d'utilisation du stockage d'un utilisateur, maintenus à chaque ajout et suppression de fichier.
+// Une ligne "all" (totaux et quota) et une ligne par catégorie de type (image, video, document...).
+// Les tailles sont celles des fichiers d'origine, y compris pour un contenu dédupliqué ou compressé.
+@Entity
+@Table(name = "storage_usage", uniqueConstraints = @UniqueConstraint(
+        name = "uk_storage_usage_user_category", columnNames = {"user_id", "category"}))
+@Data
+public class StorageUsage {
+    public static final String ALL = "all";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, length = 16)
+    private String category;
+
+    @Column(nullable = false)
+    private Long bytes = 0L;
+
+    @Column(name = "file_count", nullable = false)
+    private Long fileCount = 0L;
+
+    // Quota propre à l'utilisateur (ligne "all" seulement) ; null : quota par défaut
+    @Column(name = "quota_bytes")
+    private Long quotaBytes;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,35 @@
+package com.ApplicationGoogleDrive.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+// Contenu physique partagé par tous les fichiers ayant le même SHA-256
+@Entity
+@Table(name = "stored_contents")
+@Data
+public class StoredContent {
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(nullable = false)
+    private Long size;
+
+    @Column(nullable = false)
+    private Long referenceCount = 0L;
+
+    // Clé dans le StorageBackend (null pour les contenus stockés à plat sous leur empreinte)
+    private String storageKey;
+
+    // Encodage des octets stockés ("gzip"), null s'ils sont stockés tels quels
+    @Column(length = 16)
+    private String encoding;
+
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,54 @@
+package com.ApplicationGoogleDrive.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "upload_sessions", indexes = @Index(name = "idx_upload_sessions_expires_at", columnList = "expiresAt"))
+@Data
+public class UploadSession {
+    @Id
+    private String id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "owner_id", nullable = false)
+    private User owner;
+
+    private String fileName;
+    private String fileType;
+
+    @Column(columnDefinition = "TEXT")
+    private String description;
+
+    private boolean isPublic = false;
+
+    // Dossier de destination (null : racine)
+    private Long folderId;
+
+    @Column(nullable = false)
+    private Long totalSize;
+
+    @Column(nullable = false)
+    private Integer chunkSize;
+
+    @Column(nullable = false)
+    private Integer totalChunks;
+
+    // Volume du StorageBackend qui reçoit les morceaux puis le fichier assemblé
+    @Column(nullable = false)
+    private Integer storageVolume = 0;
+
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Début de la finalisation en cours (null : session ouverte aux morceaux et à l'annulation)
+    private LocalDateTime finalizingSince;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -1,17 +1,23 @@
 package com.ApplicationGoogleDrive.repository;
 
+import com.ApplicationGoogleDrive.dto.AccessDecisionTarget;
 import com.ApplicationGoogleDrive.model.AccessRequest;
 import com.ApplicationGoogleDrive.model.File;
 import com.ApplicationGoogleDrive.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AccessRequestRepository extends JpaRepository<AccessRequest, Long> {
+public interface AccessRequestRepository extends JpaRepository<AccessRequest, Long>, JpaSpecificationExecutor<AccessRequest> {
     List<AccessRequest> findByRequester(User requester);
     List<AccessRequest> findByOwner(User owner);
     List<AccessRequest> findByFile(File file);
@@ -30,6 +36,27 @@ public interface AccessRequestRepository extends JpaRepository<AccessRequest, Lo
     @Query("SELECT ar FROM AccessRequest ar WHERE ar.file.id = :fileId AND ar.requester.id = :requesterId")
     Optional<AccessRequest> findByFileIdAndRequesterId(@Param("fileId") Long fileId, @Param("requesterId") Long requesterId);
 
+    // Décisions groupées : demandes désignées par id
+    @Query("SELECT new com.ApplicationGoogleDrive.dto.AccessDecisionTarget(ar.id, ar.owner.id, ar.file.id, ar.requester.id, ar.status) " +
+            "FROM AccessRequest ar WHERE ar.id IN :ids")
+    List<AccessDecisionTarget> findDecisionTargets(@Param("ids") Collection<Long> ids);
+
+    // Décisions groupées : demandes en attente d'un fichier
+    @Query("SELECT new com.ApplicationGoogleDrive.dto.AccessDecisionTarget(ar.id, ar.owner.id, ar.file.id, ar.requester.id, ar.status) " +
+            "FROM AccessRequest ar WHERE ar.file.id = :fileId " +
+            "AND ar.status = com.ApplicationGoogleDrive.model.AccessRequest.RequestStatus.PENDING ORDER BY ar.id")
+    List<AccessDecisionTarget> findPendingDecisionTargets(@Param("fileId") Long fileId, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE AccessRequest ar SET ar.status = :status, ar.respondedAt = :respondedAt WHERE ar.id IN :ids")
+    int updateStatuses(@Param("ids") Collection<Long> ids,
+                       @Param("status") AccessRequest.RequestStatus status,
+                       @Param("respondedAt") LocalDateTime respondedAt);
+
+    @Modifying
+    @Query("DELETE FROM AccessRequest ar WHERE ar.file.id IN :fileIds")
+    int deleteByFileIds(@Param("fileIds") Collection<Long> fileIds);
+
     @Query("SELECT COUNT(ar) > 0 FROM AccessRequest ar WHERE ar.file.id = :fileId AND ar.requester.id = :requesterId AND ar.status = 'PENDING'")
     boolean existsPendingRequest(@Param("fileId") Long fileId, @Param("requesterId") Long requesterId);
 
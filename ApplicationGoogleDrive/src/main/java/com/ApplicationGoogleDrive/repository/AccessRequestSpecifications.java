@@ -0,0 +1,31 @@
+package com.ApplicationGoogleDrive.repository;
+
+import com.ApplicationGoogleDrive.dto.ListingRequest;
+import com.ApplicationGoogleDrive.model.AccessRequest;
+import org.springframework.data.jpa.domain.Specification;
+
+// Critères des listes de demandes paginées
+public final class AccessRequestSpecifications {
+
+    private AccessRequestSpecifications() {
+    }
+
+    public static Specification<AccessRequest> ownedBy(Long ownerId) {
+        return (root, query, cb) -> cb.equal(root.get("owner").get("id"), ownerId);
+    }
+
+    public static Specification<AccessRequest> requestedBy(Long requesterId) {
+        return (root, query, cb) -> cb.equal(root.get("requester").get("id"), requesterId);
+    }
+
+    // Filtre optionnel sur le statut (PENDING, APPROVED, REJECTED)
+    public static Specification<AccessRequest> matching(ListingRequest request) {
+        return (root, query, cb) -> {
+            if (request.getStatus() == null || request.getStatus().isBlank()) {
+                return cb.conjunction();
+            }
+            return cb.equal(root.get("status"),
+                    AccessRequest.RequestStatus.valueOf(request.getStatus().toUpperCase()));
+        };
+    }
+}
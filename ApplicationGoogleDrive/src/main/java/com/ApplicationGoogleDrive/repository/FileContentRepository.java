@@ -0,0 +1,32 @@
+package com.ApplicationGoogleDrive.repository;
+
+import com.ApplicationGoogleDrive.model.FileContent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface FileContentRepository extends JpaRepository<FileContent, Long> {
+
+    // Fichiers dont le contenu n'a pas encore été traité
+    @Query("SELECT f.id FROM File f WHERE NOT EXISTS (SELECT c FROM FileContent c WHERE c.fileId = f.id) ORDER BY f.id")
+    List<Long> findPendingFileIds(Pageable pageable);
+
+    // Parcours par id croissant pour reconstruire l'index du contenu
+    @Query("SELECT c FROM FileContent c WHERE c.fileId > :afterId " +
+            "AND c.status = com.ApplicationGoogleDrive.model.FileContent.ExtractionStatus.EXTRACTED ORDER BY c.fileId")
+    List<FileContent> findExtractedAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM FileContent c WHERE c.fileId = :fileId")
+    int deleteByFileId(@Param("fileId") Long fileId);
+
+    @Modifying
+    @Query("DELETE FROM FileContent c WHERE c.fileId IN :fileIds")
+    int deleteByFileIds(@Param("fileIds") Collection<Long> fileIds);
+}
@@ -0,0 +1,66 @@
+package com.ApplicationGoogleDrive.repository;
+
+import com.ApplicationGoogleDrive.model.FileGrant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface FileGrantRepository extends JpaRepository<FileGrant, Long> {
+
+    boolean existsByFileIdAndUserId(Long fileId, Long userId);
+
+    // Table non vide (lit au plus une ligne)
+    boolean existsByIdIsNotNull();
+
+    @Query("SELECT g.fileId FROM FileGrant g WHERE g.userId = :userId AND g.fileId IN :fileIds")
+    List<Long> findGrantedFileIds(@Param("userId") Long userId, @Param("fileIds") Collection<Long> fileIds);
+
+    // Idempotent : une deuxième approbation ne crée pas de doublon
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO file_grants (file_id, user_id, granted_at) " +
+            "VALUES (:fileId, :userId, NOW())", nativeQuery = true)
+    int grant(@Param("fileId") Long fileId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM FileGrant g WHERE g.fileId = :fileId AND g.userId = :userId")
+    int revoke(@Param("fileId") Long fileId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM FileGrant g WHERE g.fileId = :fileId")
+    int revokeAll(@Param("fileId") Long fileId);
+
+    // Décisions groupées : accès des demandeurs des demandes approuvées, en une instruction
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO file_grants (file_id, user_id, granted_at) " +
+            "SELECT ar.file_id, ar.requester_id, NOW() FROM access_requests ar WHERE ar.id IN (:requestIds)",
+            nativeQuery = true)
+    int grantForRequests(@Param("requestIds") Collection<Long> requestIds);
+
+    @Modifying
+    @Query("DELETE FROM FileGrant g WHERE EXISTS (SELECT ar FROM AccessRequest ar " +
+            "WHERE ar.id IN :requestIds AND ar.file.id = g.fileId AND ar.requester.id = g.userId)")
+    int revokeForRequests(@Param("requestIds") Collection<Long> requestIds);
+
+    @Modifying
+    @Query("DELETE FROM FileGrant g WHERE g.fileId IN :fileIds")
+    int revokeAllForFiles(@Param("fileIds") Collection<Long> fileIds);
+
+    // Reconstruit les accès manquants à partir des demandes approuvées
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO file_grants (file_id, user_id, granted_at) " +
+            "SELECT ar.file_id, ar.requester_id, COALESCE(ar.responded_at, ar.requested_at) " +
+            "FROM access_requests ar WHERE ar.status = 'APPROVED'", nativeQuery = true)
+    int backfillFromApprovedRequests();
+
+    // Supprime les accès qui ne correspondent plus à une demande approuvée
+    @Modifying
+    @Query("DELETE FROM FileGrant g WHERE NOT EXISTS (SELECT ar FROM AccessRequest ar " +
+            "WHERE ar.file.id = g.fileId AND ar.requester.id = g.userId AND ar.status = 'APPROVED')")
+    int deleteOrphans();
+}
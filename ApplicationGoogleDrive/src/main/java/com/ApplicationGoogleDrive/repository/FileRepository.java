@@ -1,34 +1,123 @@
 package com.ApplicationGoogleDrive.repository;
 
+import com.ApplicationGoogleDrive.dto.BulkFileTarget;
+import com.ApplicationGoogleDrive.dto.FileSearchEntry;
+import com.ApplicationGoogleDrive.dto.FileStatusRow;
+import com.ApplicationGoogleDrive.dto.PrivateFileStatus;
 import com.ApplicationGoogleDrive.model.File;
 import com.ApplicationGoogleDrive.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface FileRepository extends JpaRepository<File, Long> {
+public interface FileRepository extends JpaRepository<File, Long>, JpaSpecificationExecutor<File> {
     List<File> findByOwner(User owner);
     List<File> findByIsPublicTrue();
 
+    // Upload instantané : le contenu doit déjà figurer parmi les fichiers de l'utilisateur
+    boolean existsByOwnerIdAndContentHashAndFileSize(Long ownerId, String contentHash, Long fileSize);
+
     // Tous les fichiers privés
     @Query("SELECT f FROM File f WHERE f.isPublic = false")
     List<File> findAllPrivateFiles();
 
-    // Fichiers visibles pour un utilisateur
+    // Fichiers visibles pour un utilisateur (accès accordés lus dans file_grants)
     @Query("SELECT f FROM File f WHERE f.isPublic = true " +
             "OR f.owner.id = :userId " +
-            "OR EXISTS (SELECT ar FROM AccessRequest ar WHERE ar.file.id = f.id AND ar.requester.id = :userId AND ar.status = 'APPROVED')")
+            "OR EXISTS (SELECT g FROM FileGrant g WHERE g.fileId = f.id AND g.userId = :userId)")
     List<File> findVisibleFiles(@Param("userId") Long userId);
 
     // NOUVELLE MÉTHODE: Tous les fichiers privés d'autres utilisateurs
     @Query("SELECT f FROM File f WHERE f.isPublic = false AND f.owner.id != :userId")
     List<File> findAllOthersPrivateFiles(@Param("userId") Long userId);
 
+    // Fichiers privés d'autres utilisateurs avec propriétaire et statut de demande, en une seule requête
+    @Query("SELECT new com.ApplicationGoogleDrive.dto.PrivateFileStatus(" +
+            "f.id, f.fileName, f.description, f.fileSize, f.fileType, f.uploadedAt, " +
+            "o.email, o.firstName, o.lastName, ar.id, ar.status, ar.message, ar.requestedAt) " +
+            "FROM File f JOIN f.owner o " +
+            "LEFT JOIN AccessRequest ar ON ar.file = f AND ar.requester.id = :userId " +
+            "WHERE f.isPublic = false AND o.id <> :userId")
+    List<PrivateFileStatus> findOthersPrivateFilesWithStatus(@Param("userId") Long userId);
+
+    // Fichiers désignés par id avec propriétaire et demande de l'utilisateur (userId null : aucune demande)
+    @Query("SELECT new com.ApplicationGoogleDrive.dto.FileStatusRow(" +
+            "f.id, f.fileName, f.description, f.fileSize, f.fileType, f.uploadedAt, f.isPublic, " +
+            "o.id, o.email, o.firstName, o.lastName, ar.id, ar.status, ar.message, ar.requestedAt, ar.respondedAt) " +
+            "FROM File f JOIN f.owner o " +
+            "LEFT JOIN AccessRequest ar ON ar.file = f AND ar.requester.id = :userId " +
+            "WHERE f.id IN :ids")
+    List<FileStatusRow> findStatusRows(@Param("ids") Collection<Long> ids, @Param("userId") Long userId);
+
+    // Même projection, par page : curseur (uploadedAt, id) et filtres optionnels, sans OFFSET
+    @Query("SELECT new com.ApplicationGoogleDrive.dto.PrivateFileStatus(" +
+            "f.id, f.fileName, f.description, f.fileSize, f.fileType, f.uploadedAt, " +
+            "o.email, o.firstName, o.lastName, ar.id, ar.status, ar.message, ar.requestedAt) " +
+            "FROM File f JOIN f.owner o " +
+            "LEFT JOIN AccessRequest ar ON ar.file = f AND ar.requester.id = :userId " +
+            "WHERE f.isPublic = false AND o.id <> :userId " +
+            "AND (:cursorAt IS NULL OR f.uploadedAt < :cursorAt OR (f.uploadedAt = :cursorAt AND f.id < :cursorId)) " +
+            "AND (:q IS NULL OR LOWER(f.fileName) LIKE CONCAT('%', LOWER(:q), '%')) " +
+            "AND (:type IS NULL OR f.fileType LIKE CONCAT(:type, '%')) " +
+            "ORDER BY f.uploadedAt DESC, f.id DESC")
+    List<PrivateFileStatus> findOthersPrivateFilesWithStatusAfter(@Param("userId") Long userId,
+                                                                  @Param("cursorAt") LocalDateTime cursorAt,
+                                                                  @Param("cursorId") Long cursorId,
+                                                                  @Param("q") String q,
+                                                                  @Param("type") String type,
+                                                                  Pageable pageable);
+
+    // Parcours par id croissant pour reconstruire l'index de recherche
+    @Query("SELECT new com.ApplicationGoogleDrive.dto.FileSearchEntry(f.id, f.fileName, f.description, f.owner.id, f.isPublic) " +
+            "FROM File f WHERE f.id > :afterId ORDER BY f.id")
+    List<FileSearchEntry> findSearchEntriesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Opérations groupées : fichiers désignés par id
+    @Query("SELECT new com.ApplicationGoogleDrive.dto.BulkFileTarget(f.id, f.owner.id, f.isPublic, f.contentHash, f.filePath, f.folderId, f.fileSize, f.fileType) " +
+            "FROM File f WHERE f.id IN :ids")
+    List<BulkFileTarget> findBulkTargets(@Param("ids") Collection<Long> ids);
+
+    // Opérations groupées : fichiers d'un utilisateur sélectionnés par filtre (hors ceux ayant déjà
+    // la visibilité visée, pour qu'une requête relancée avance dans la sélection)
+    @Query("SELECT new com.ApplicationGoogleDrive.dto.BulkFileTarget(f.id, f.owner.id, f.isPublic, f.contentHash, f.filePath, f.folderId, f.fileSize, f.fileType) " +
+            "FROM File f WHERE f.owner.id = :ownerId " +
+            "AND (:q IS NULL OR LOWER(f.fileName) LIKE CONCAT('%', LOWER(:q), '%')) " +
+            "AND (:type IS NULL OR f.fileType LIKE CONCAT(:type, '%')) " +
+            "AND (:isPublic IS NULL OR f.isPublic <> :isPublic) " +
+            "ORDER BY f.id")
+    List<BulkFileTarget> findBulkTargetsMatching(@Param("ownerId") Long ownerId,
+                                                 @Param("q") String q,
+                                                 @Param("type") String type,
+                                                 @Param("isPublic") Boolean isPublic,
+                                                 Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM File f WHERE f.id IN :ids")
+    int deleteAllByIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE File f SET f.folderId = :folderId WHERE f.id IN :ids")
+    int moveToFolder(@Param("ids") Collection<Long> ids, @Param("folderId") Long folderId);
+
+    // Fichiers d'un sous-arbre de dossiers (suppression d'un dossier)
+    @Query("SELECT f.id FROM File f WHERE f.folderId IN " +
+            "(SELECT d.id FROM Folder d WHERE d.path LIKE CONCAT(:pathPrefix, '%')) ORDER BY f.id")
+    List<Long> findIdsInSubtree(@Param("pathPrefix") String pathPrefix, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE File f SET f.isPublic = :isPublic WHERE f.id IN :ids")
+    int updateVisibility(@Param("ids") Collection<Long> ids, @Param("isPublic") boolean isPublic);
+
     // Ancienne méthode gardée pour compatibilité
     @Query("SELECT f FROM File f WHERE f.isPublic = false AND f.owner.id != :userId " +
-            "AND NOT EXISTS (SELECT ar FROM AccessRequest ar WHERE ar.file.id = f.id AND ar.requester.id = :userId AND ar.status = 'APPROVED')")
+            "AND NOT EXISTS (SELECT g FROM FileGrant g WHERE g.fileId = f.id AND g.userId = :userId)")
     List<File> findOthersPrivateFiles(@Param("userId") Long userId);
 }
\ No newline at end of file
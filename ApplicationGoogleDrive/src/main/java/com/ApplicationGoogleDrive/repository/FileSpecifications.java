@@ -0,0 +1,81 @@
+package com.ApplicationGoogleDrive.repository;
+
+import com.ApplicationGoogleDrive.dto.ListingRequest;
+import com.ApplicationGoogleDrive.model.File;
+import com.ApplicationGoogleDrive.model.FileGrant;
+import com.ApplicationGoogleDrive.model.Folder;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Critères des listes de fichiers paginées (équivalents des requêtes de FileRepository)
+public final class FileSpecifications {
+
+    private FileSpecifications() {
+    }
+
+    public static Specification<File> ownedBy(Long userId) {
+        return (root, query, cb) -> cb.equal(root.get("owner").get("id"), userId);
+    }
+
+    public static Specification<File> idIn(Collection<Long> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+
+    // Fichiers directement dans un dossier (null : racine), index folder_id, uploadedAt, id
+    public static Specification<File> inFolder(Long folderId) {
+        return (root, query, cb) -> folderId == null
+                ? cb.isNull(root.get("folderId"))
+                : cb.equal(root.get("folderId"), folderId);
+    }
+
+    // Fichiers de tout un sous-arbre : dossiers trouvés par préfixe de chemin (index sur path)
+    public static Specification<File> inSubtree(String pathPrefix) {
+        return (root, query, cb) -> {
+            Subquery<Long> folders = query.subquery(Long.class);
+            Root<Folder> folder = folders.from(Folder.class);
+            folders.select(folder.get("id")).where(cb.like(folder.get("path"), pathPrefix + "%"));
+            return root.get("folderId").in(folders);
+        };
+    }
+
+    public static Specification<File> isPublic() {
+        return (root, query, cb) -> cb.isTrue(root.get("isPublic"));
+    }
+
+    // Publics, possédés, ou avec un accès accordé (même règle que findVisibleFiles)
+    public static Specification<File> visibleTo(Long userId) {
+        return (root, query, cb) -> {
+            Subquery<Long> granted = query.subquery(Long.class);
+            Root<FileGrant> grant = granted.from(FileGrant.class);
+            granted.select(grant.get("id")).where(
+                    cb.equal(grant.get("fileId"), root.get("id")),
+                    cb.equal(grant.get("userId"), userId));
+
+            return cb.or(
+                    cb.isTrue(root.get("isPublic")),
+                    cb.equal(root.get("owner").get("id"), userId),
+                    cb.exists(granted));
+        };
+    }
+
+    // Filtres optionnels : nom contenant q, type MIME commençant par type
+    public static Specification<File> matching(ListingRequest request) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (request.getQ() != null && !request.getQ().isBlank()) {
+                predicates.add(cb.like(cb.lower(root.get("fileName")),
+                        "%" + request.getQ().toLowerCase() + "%"));
+            }
+            if (request.getType() != null && !request.getType().isBlank()) {
+                predicates.add(cb.like(root.get("fileType"), request.getType() + "%"));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package com.ApplicationGoogleDrive.repository;
+
+import com.ApplicationGoogleDrive.model.Folder;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface FolderRepository extends JpaRepository<Folder, Long> {
+
+    // Sous-dossiers directs (index owner_id, parent_id, name)
+    List<Folder> findByOwnerIdAndParentIdIsNullOrderByNameAsc(Long ownerId);
+
+    List<Folder> findByOwnerIdAndParentIdOrderByNameAsc(Long ownerId, Long parentId);
+
+    boolean existsByOwnerIdAndParentIdIsNullAndName(Long ownerId, String name);
+
+    boolean existsByOwnerIdAndParentIdAndName(Long ownerId, Long parentId, String name);
+
+    // Id et chemin d'un dossier, lus sans charger l'entité
+    interface FolderPath {
+        Long getId();
+
+        String getPath();
+    }
+
+    // Verrouille le dossier : son chemin ne peut pas changer avant la fin de la transaction
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM Folder d WHERE d.id = :id")
+    Optional<Folder> findByIdForUpdate(@Param("id") Long id);
+
+    @Query("SELECT d.id AS id, d.path AS path FROM Folder d WHERE d.id IN :ids")
+    List<FolderPath> findPaths(@Param("ids") Collection<Long> ids);
+
+    // Verrouillage dans l'ordre des ids : deux transactions qui verrouillent des dossiers communs
+    // (cumuls, déplacement, suppression) ne peuvent pas s'interbloquer. Lecture verrouillante :
+    // les chemins renvoyés sont les derniers validés, pas ceux de l'instantané de la transaction.
+    @Query(value = "SELECT id, path FROM folders WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<FolderPath> lockPaths(@Param("ids") Collection<Long> ids);
+
+    // Idem, avec tout le sous-arbre de pathPrefix
+    @Query(value = "SELECT id, path FROM folders WHERE id IN (:ids) OR path LIKE CONCAT(:pathPrefix, '%') " +
+            "ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<FolderPath> lockSubtreePaths(@Param("pathPrefix") String pathPrefix, @Param("ids") Collection<Long> ids);
+
+    @Query("SELECT d.id FROM Folder d WHERE d.path LIKE CONCAT(:pathPrefix, '%')")
+    List<Long> findSubtreeIds(@Param("pathPrefix") String pathPrefix);
+
+    @Query("SELECT MAX(d.depth) FROM Folder d WHERE d.path LIKE CONCAT(:pathPrefix, '%')")
+    Integer findSubtreeMaxDepth(@Param("pathPrefix") String pathPrefix);
+
+    // Cumuls des ancêtres d'un dossier (lui compris) en une instruction
+    @Modifying
+    @Query("UPDATE Folder d SET d.fileCount = d.fileCount + :files, d.totalSize = d.totalSize + :bytes " +
+            "WHERE d.id IN :ids")
+    int addToRollups(@Param("ids") Collection<Long> ids, @Param("files") long files, @Param("bytes") long bytes);
+
+    // Déplacement d'un sous-arbre : seuls les chemins des dossiers changent, les fichiers gardent leur folder_id
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Folder d SET d.path = CONCAT(:newPrefix, SUBSTRING(d.path, :oldPrefixLength + 1)), " +
+            "d.depth = d.depth + :depthDelta WHERE d.path LIKE CONCAT(:oldPrefix, '%')")
+    int moveSubtree(@Param("oldPrefix") String oldPrefix,
+                    @Param("oldPrefixLength") int oldPrefixLength,
+                    @Param("newPrefix") String newPrefix,
+                    @Param("depthDelta") int depthDelta);
+
+    @Modifying
+    @Query("UPDATE Folder d SET d.parentId = :parentId WHERE d.id = :id")
+    int updateParent(@Param("id") Long id, @Param("parentId") Long parentId);
+
+    @Modifying
+    @Query("DELETE FROM Folder d WHERE d.path LIKE CONCAT(:pathPrefix, '%')")
+    int deleteSubtree(@Param("pathPrefix") String pathPrefix);
+}
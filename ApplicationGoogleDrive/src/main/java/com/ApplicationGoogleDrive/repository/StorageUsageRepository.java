@@ -0,0 +1,57 @@
+package com.ApplicationGoogleDrive.repository;
+
+import com.ApplicationGoogleDrive.dto.UsageAggregate;
+import com.ApplicationGoogleDrive.model.StorageUsage;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StorageUsageRepository extends JpaRepository<StorageUsage, Long> {
+
+    List<StorageUsage> findByUserId(Long userId);
+
+    Optional<StorageUsage> findByUserIdAndCategory(Long userId, String category);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM StorageUsage u WHERE u.userId = :userId AND u.category = :category")
+    Optional<StorageUsage> findForUpdate(@Param("userId") Long userId, @Param("category") String category);
+
+    // 1 si la ligne vient d'être créée, 0 si elle existait déjà
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO storage_usage (user_id, category, bytes, file_count, updated_at) " +
+            "VALUES (:userId, :category, 0, 0, NOW())", nativeQuery = true)
+    int ensureRow(@Param("userId") Long userId, @Param("category") String category);
+
+    // Ajout sous quota en une instruction : 0 ligne modifiée si le quota serait dépassé (quota < 0 : illimité).
+    // La ligne reste verrouillée jusqu'au commit, deux uploads simultanés ne peuvent pas dépasser ensemble.
+    @Modifying
+    @Query(value = "UPDATE storage_usage SET bytes = bytes + :bytes, file_count = file_count + :files, " +
+            "updated_at = NOW() WHERE user_id = :userId AND category = 'all' " +
+            "AND (COALESCE(quota_bytes, :defaultQuota) < 0 OR bytes + :bytes <= COALESCE(quota_bytes, :defaultQuota))",
+            nativeQuery = true)
+    int addWithinQuota(@Param("userId") Long userId, @Param("bytes") long bytes, @Param("files") long files,
+                       @Param("defaultQuota") long defaultQuota);
+
+    // Ajout ou retrait (valeurs négatives) sans contrôle de quota ; les compteurs ne descendent pas sous 0
+    @Modifying
+    @Query(value = "INSERT INTO storage_usage (user_id, category, bytes, file_count, updated_at) " +
+            "VALUES (:userId, :category, GREATEST(:bytes, 0), GREATEST(:files, 0), NOW()) " +
+            "ON DUPLICATE KEY UPDATE bytes = GREATEST(bytes + :bytes, 0), " +
+            "file_count = GREATEST(file_count + :files, 0), updated_at = NOW()",
+            nativeQuery = true)
+    int add(@Param("userId") Long userId, @Param("category") String category,
+            @Param("bytes") long bytes, @Param("files") long files);
+
+    // Réconciliation : valeurs réelles calculées depuis la table files, par type MIME
+    @Query("SELECT new com.ApplicationGoogleDrive.dto.UsageAggregate(f.fileType, COUNT(f), COALESCE(SUM(f.fileSize), 0)) " +
+            "FROM File f WHERE f.owner.id = :userId GROUP BY f.fileType")
+    List<UsageAggregate> aggregateFilesByType(@Param("userId") Long userId);
+}
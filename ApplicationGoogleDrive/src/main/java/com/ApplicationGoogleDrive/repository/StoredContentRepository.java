@@ -0,0 +1,40 @@
+package com.ApplicationGoogleDrive.repository;
+
+import com.ApplicationGoogleDrive.model.StoredContent;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StoredContentRepository extends JpaRepository<StoredContent, String> {
+
+    // Crée la ligne ou incrémente le compteur en une seule instruction (verrouille la ligne jusqu'au commit)
+    @Modifying
+    @Query(value = "INSERT INTO stored_contents (hash, size, reference_count, storage_key, encoding, created_at) " +
+            "VALUES (:hash, :size, 1, :storageKey, :encoding, NOW()) " +
+            "ON DUPLICATE KEY UPDATE reference_count = reference_count + 1", nativeQuery = true)
+    void upsertReference(@Param("hash") String hash, @Param("size") long size,
+                         @Param("storageKey") String storageKey, @Param("encoding") String encoding);
+
+    // Upload instantané : n'ajoute une référence que si le contenu est déjà stocké
+    @Modifying
+    @Query("UPDATE StoredContent c SET c.referenceCount = c.referenceCount + 1 " +
+            "WHERE c.hash = :hash AND c.size = :size AND c.referenceCount > 0")
+    int incrementIfPresent(@Param("hash") String hash, @Param("size") long size);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM StoredContent c WHERE c.hash = :hash")
+    Optional<StoredContent> findByHashForUpdate(@Param("hash") String hash);
+
+    // Verrouillage dans l'ordre des empreintes : deux suppressions groupées ne peuvent pas s'interbloquer
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM StoredContent c WHERE c.hash IN :hashes ORDER BY c.hash")
+    List<StoredContent> findAllByHashForUpdate(@Param("hashes") Collection<String> hashes);
+}
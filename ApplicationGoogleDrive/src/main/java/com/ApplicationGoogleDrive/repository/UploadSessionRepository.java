@@ -0,0 +1,49 @@
+package com.ApplicationGoogleDrive.repository;
+
+import com.ApplicationGoogleDrive.model.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+    List<UploadSession> findByExpiresAtBefore(LocalDateTime dateTime);
+
+    // Prolonge la session sans recharger l'entité (appelé à chaque morceau, potentiellement en parallèle)
+    @Transactional
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.expiresAt = :expiresAt WHERE s.id = :id")
+    int extendExpiration(@Param("id") String id, @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Réserve la session pour une seule finalisation (0 : déjà en cours, expirée ou supprimée).
+    // L'expiration est repoussée pour que la purge ne supprime pas les morceaux pendant l'assemblage.
+    @Transactional
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.finalizingSince = :now, s.expiresAt = :expiresAt " +
+            "WHERE s.id = :id AND s.finalizingSince IS NULL AND s.expiresAt > :now")
+    int claimForFinalization(@Param("id") String id, @Param("now") LocalDateTime now,
+                             @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Finalisation échouée : la session peut être finalisée à nouveau ou annulée
+    @Transactional
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.finalizingSince = NULL WHERE s.id = :id")
+    int releaseFinalization(@Param("id") String id);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM UploadSession s WHERE s.id = :id AND s.finalizingSince IS NULL")
+    int deleteIfNotFinalizing(@Param("id") String id);
+
+    // Expiration revérifiée à la suppression : une finalisation réservée entre-temps l'a repoussée
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM UploadSession s WHERE s.id = :id AND s.expiresAt < :now")
+    int deleteIfExpired(@Param("id") String id, @Param("now") LocalDateTime now);
+}
@@ -1,12 +1,15 @@
 package com.ApplicationGoogleDrive.security;
 
+import com.ApplicationGoogleDrive.model.User;
 import io.jsonwebtoken.*;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -19,6 +22,12 @@ public class JwtTokenUtil {
     @Value("${jwt.expiration}")
     private Long expiration;
 
+    // Claims portant l'identité de l'utilisateur, pour éviter une requête en base à chaque appel
+    static final String CLAIM_USER_ID = "uid";
+    static final String CLAIM_FIRST_NAME = "firstName";
+    static final String CLAIM_LAST_NAME = "lastName";
+    static final String CLAIM_ROLES = "roles";
+
     public String getUsernameFromToken(String token) {
         return getClaimFromToken(token, Claims::getSubject);
     }
@@ -32,6 +41,27 @@ public class JwtTokenUtil {
         return claimsResolver.apply(claims);
     }
 
+    // Vérifie la signature et l'expiration en un seul parsing ; lève une JwtException sinon
+    public Claims getValidatedClaims(String token) {
+        return getAllClaimsFromToken(token);
+    }
+
+    // Principal reconstruit depuis les claims ; null pour un ancien jeton sans identifiant
+    public AuthenticatedUser getAuthenticatedUser(Claims claims) {
+        Object userId = claims.get(CLAIM_USER_ID);
+        if (!(userId instanceof Number)) {
+            return null;
+        }
+
+        List<String> roles = new ArrayList<>();
+        if (claims.get(CLAIM_ROLES) instanceof List<?> roleClaims) {
+            roleClaims.forEach(role -> roles.add(String.valueOf(role)));
+        }
+
+        return new AuthenticatedUser(((Number) userId).longValue(), claims.getSubject(),
+                claims.get(CLAIM_FIRST_NAME, String.class), claims.get(CLAIM_LAST_NAME, String.class), roles);
+    }
+
     private Claims getAllClaimsFromToken(String token) {
         return Jwts.parser()
                 .setSigningKey(secret)
@@ -49,6 +79,15 @@ public class JwtTokenUtil {
         return doGenerateToken(claims, userDetails.getUsername());
     }
 
+    public String generateToken(User user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_USER_ID, user.getId());
+        claims.put(CLAIM_FIRST_NAME, user.getFirstName());
+        claims.put(CLAIM_LAST_NAME, user.getLastName());
+        claims.put(CLAIM_ROLES, user.getRoles().stream().map(role -> role.getName().name()).toList());
+        return doGenerateToken(claims, user.getEmail());
+    }
+
     private String doGenerateToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
                 .setClaims(claims)
@@ -0,0 +1,53 @@
+package com.ApplicationGoogleDrive.security;
+
+import com.ApplicationGoogleDrive.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+// Vérification optionnelle qu'un compte est toujours actif, mise en cache quelques secondes
+// pour que le chemin courant ne fasse aucune requête utilisateur.
+// La requête SQL s'exécute hors du verrou de la map (pas d'épinglage des threads virtuels).
+@Component
+public class UserStatusCache {
+
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final AsyncCache<Long, Boolean> statuses;
+
+    public UserStatusCache(UserRepository userRepository,
+                           @Value("${security.user-status-check.enabled:true}") boolean enabled,
+                           @Value("${security.user-status-check.ttl-seconds:30}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .buildAsync();
+    }
+
+    public boolean isActive(Long userId) {
+        if (!enabled) {
+            return true;
+        }
+        CompletableFuture<Boolean> reserved = new CompletableFuture<>();
+        CompletableFuture<Boolean> status = statuses.get(userId, (id, executor) -> reserved);
+        if (status == reserved) {
+            try {
+                reserved.complete(userRepository.findEnabledById(userId).orElse(false));
+            } catch (RuntimeException e) {
+                reserved.completeExceptionally(e);
+                throw e;
+            }
+        }
+        return status.join();
+    }
+
+    public void invalidate(Long userId) {
+        statuses.synchronous().invalidate(userId);
+    }
+}
@@ -0,0 +1,129 @@
+package com.ApplicationGoogleDrive.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Cache des décisions d'accès (fichier, utilisateur) pour les fichiers privés d'autres utilisateurs.
+// Les invalidations sont appliquées après le commit. La requête SQL s'exécute hors du verrou de la map
+// (pas d'épinglage d'un thread virtuel pendant le JDBC) ; un chargement en cours invalidé n'est pas
+// remis en cache, car invalider retire le futur de la map. Un index par fichier limite l'invalidation
+// d'un fichier à ses propres entrées, sans parcourir tout le cache.
+@Component
+public class AccessDecisionCache {
+
+    private record AccessKey(Long fileId, Long userId) {
+    }
+
+    private final AsyncCache<AccessKey, Boolean> decisions;
+    // Clés en cache par fichier ; une clé évincée (taille, expiration) est retirée par le listener,
+    // appelé de façon atomique avec l'éviction
+    private final Map<Long, Set<AccessKey>> keysByFile = new ConcurrentHashMap<>();
+
+    public AccessDecisionCache(@Value("${files.access-cache.max-size:100000}") long maxSize,
+                               @Value("${files.access-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.decisions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .<AccessKey, Boolean>evictionListener((key, decision, cause) -> unindex(key))
+                .buildAsync();
+    }
+
+    public boolean get(Long fileId, Long userId, Supplier<Boolean> loader) {
+        // La fonction passée à Caffeine ne fait que réserver l'entrée ; le chargement a lieu ensuite
+        AccessKey accessKey = new AccessKey(fileId, userId);
+        CompletableFuture<Boolean> reserved = new CompletableFuture<>();
+        // Indexée avant la réservation (une invalidation concurrente la voit) et après (l'éviction d'une
+        // ancienne entrée expirée pendant la réservation a pu la retirer de l'index)
+        index(accessKey);
+        CompletableFuture<Boolean> decision = decisions.get(accessKey, (key, executor) -> reserved);
+        index(accessKey);
+        if (decision == reserved) {
+            try {
+                reserved.complete(loader.get());
+            } catch (RuntimeException e) {
+                // Un futur en échec est retiré du cache par Caffeine
+                reserved.completeExceptionally(e);
+                throw e;
+            }
+        }
+        return decision.join();
+    }
+
+    // Décision d'un utilisateur sur un fichier (demande approuvée, rejetée ou supprimée)
+    public void invalidate(Long fileId, Long userId) {
+        AccessKey key = new AccessKey(fileId, userId);
+        AfterCommit.run(() -> {
+            decisions.synchronous().invalidate(key);
+            unindex(key);
+        });
+    }
+
+    // Toutes les décisions d'un fichier (suppression, changement de visibilité)
+    public void invalidateFile(Long fileId) {
+        AfterCommit.run(() -> invalidateIndexed(fileId));
+    }
+
+    // Décisions groupées : utilisateurs concernés par fichier, invalidés en une seule fois
+    public void invalidateAll(Map<Long, ? extends Collection<Long>> userIdsByFile) {
+        Set<AccessKey> keys = new HashSet<>();
+        userIdsByFile.forEach((fileId, userIds) -> userIds.forEach(userId -> keys.add(new AccessKey(fileId, userId))));
+        AfterCommit.run(() -> {
+            decisions.synchronous().invalidateAll(keys);
+            keys.forEach(this::unindex);
+        });
+    }
+
+    // Opérations groupées : seules les entrées des fichiers concernés sont parcourues
+    public void invalidateFiles(Collection<Long> fileIds) {
+        Set<Long> invalidated = new HashSet<>(fileIds);
+        AfterCommit.run(() -> invalidated.forEach(this::invalidateIndexed));
+    }
+
+    private void invalidateIndexed(Long fileId) {
+        Set<AccessKey> keys = keysByFile.remove(fileId);
+        if (keys != null) {
+            decisions.synchronous().invalidateAll(keys);
+        }
+    }
+
+    // Ensembles modifiés uniquement dans compute : un ensemble retiré par une invalidation ne change plus
+    private void index(AccessKey key) {
+        keysByFile.compute(key.fileId(), (id, keys) -> {
+            Set<AccessKey> indexed = keys != null ? keys : new HashSet<>();
+            indexed.add(key);
+            return indexed;
+        });
+    }
+
+    private void unindex(AccessKey key) {
+        keysByFile.computeIfPresent(key.fileId(), (id, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    public Map<String, Object> getStatistics() {
+        CacheStats stats = decisions.synchronous().stats();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("size", decisions.synchronous().estimatedSize());
+        statistics.put("hits", stats.hitCount());
+        statistics.put("misses", stats.missCount());
+        statistics.put("hitRate", stats.hitRate());
+        statistics.put("evictions", stats.evictionCount());
+        return statistics;
+    }
+}
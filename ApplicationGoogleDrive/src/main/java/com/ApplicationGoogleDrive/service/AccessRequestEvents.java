@@ -0,0 +1,327 @@
+package com.ApplicationGoogleDrive.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Flux Server-Sent Events des changements de demandes d'accès, un canal par utilisateur.
+// Les événements sont publiés après le commit. Une connexion inactive ne mobilise aucun thread (requête
+// asynchrone) ; un battement périodique détecte les clients partis. Les derniers événements de chaque
+// utilisateur sont conservés : un client qui se reconnecte avec Last-Event-ID reçoit ceux qu'il a manqués,
+// ou un événement "resync" (relire les listes) s'ils ne sont plus disponibles ou datent d'avant un redémarrage.
+// Chaque connexion a sa propre file d'envoi bornée, vidée par un pool de threads : un client lent n'occupe
+// qu'un thread et sa propre file, et il est déconnecté si celle-ci déborde (il rattrape par Last-Event-ID).
+@Slf4j
+@Component
+public class AccessRequestEvents {
+
+    public static final String CREATED = "request-created";
+    public static final String UPDATED = "request-updated";
+    public static final String DELETED = "request-deleted";
+    public static final String BULK_UPDATED = "requests-updated";
+    private static final String RESYNC = "resync";
+
+    private record Event(long sequence, String type, Map<String, Object> data) {
+    }
+
+    // Événements récents et connexions ouvertes d'un utilisateur
+    private static final class Channel {
+        private final ArrayDeque<Event> recent = new ArrayDeque<>();
+        private final List<Connection> connections = new CopyOnWriteArrayList<>();
+        // Événements jusqu'à ce numéro inclus : plus rejouables
+        private long droppedUpTo;
+        private long lastActivity = System.currentTimeMillis();
+
+        private Channel(long droppedUpTo) {
+            this.droppedUpTo = droppedUpTo;
+        }
+    }
+
+    // Le préfixe de démarrage invalide les identifiants émis avant un redémarrage
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor dispatcher;
+    private final long timeoutMs;
+    private final int replaySize;
+    private final long replayTtlMs;
+    private final int maxConnectionsPerUser;
+    private final int connectionQueueSize;
+
+    public AccessRequestEvents(@Value("${files.events.timeout-ms:1800000}") long timeoutMs,
+                               @Value("${files.events.replay-size:100}") int replaySize,
+                               @Value("${files.events.replay-ttl-ms:600000}") long replayTtlMs,
+                               @Value("${files.events.max-connections-per-user:5}") int maxConnectionsPerUser,
+                               @Value("${files.events.connection-queue-size:256}") int connectionQueueSize,
+                               @Value("${files.events.workers:4}") int workers,
+                               @Value("${files.events.queue-capacity:10000}") int queueCapacity) {
+        this.timeoutMs = timeoutMs;
+        this.replaySize = replaySize;
+        this.replayTtlMs = replayTtlMs;
+        this.maxConnectionsPerUser = maxConnectionsPerUser;
+        this.connectionQueueSize = connectionQueueSize;
+        // La file du pool contient au plus une tâche par connexion ayant des messages en attente
+        this.dispatcher = WorkerPools.bounded("request-events", workers, queueCapacity, Thread.NORM_PRIORITY,
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // File d'envoi d'une connexion. Une seule tâche à la fois la vide (drapeau scheduled) : les messages
+    // partent dans l'ordre de publication.
+    private final class Connection implements Runnable {
+        // Messages envoyés par tâche avant de rendre la main aux autres connexions
+        private static final int DRAIN_BATCH = 32;
+
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final ArrayDeque<Supplier<SseEmitter.SseEventBuilder>> outbox = new ArrayDeque<>();
+        private boolean scheduled;
+        private boolean closed;
+
+        private Connection(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        // Renvoie false si la file de la connexion est pleine
+        private boolean enqueue(Supplier<SseEmitter.SseEventBuilder> message) {
+            synchronized (this) {
+                if (closed) {
+                    return true;
+                }
+                if (outbox.size() >= connectionQueueSize) {
+                    return false;
+                }
+                outbox.addLast(message);
+                if (scheduled) {
+                    return true;
+                }
+                scheduled = true;
+            }
+            schedule();
+            return true;
+        }
+
+        // Battement : inutile si des messages sont déjà en attente ou en cours d'envoi. Relance aussi
+        // une file dont la tâche a été refusée par le pool.
+        private void heartbeat() {
+            synchronized (this) {
+                if (closed || scheduled) {
+                    return;
+                }
+                if (outbox.isEmpty()) {
+                    outbox.addLast(() -> SseEmitter.event().comment("ping"));
+                }
+                scheduled = true;
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            try {
+                dispatcher.execute(this);
+            } catch (RejectedExecutionException e) {
+                // Pool saturé : les messages restent dans la file, le prochain battement la relance
+                synchronized (this) {
+                    scheduled = false;
+                }
+                log.debug("Request event pool full, stream of user {} deferred", userId);
+            }
+        }
+
+        @Override
+        public void run() {
+            for (int sent = 0; sent < DRAIN_BATCH; sent++) {
+                Supplier<SseEmitter.SseEventBuilder> message;
+                synchronized (this) {
+                    message = closed ? null : outbox.pollFirst();
+                    if (message == null) {
+                        scheduled = false;
+                        return;
+                    }
+                }
+                try {
+                    // Un SseEventBuilder ne s'envoie qu'une fois : message construit pour cette connexion
+                    emitter.send(message.get());
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("Request event stream of user {} closed: {}", userId, e.getMessage());
+                    remove(userId, emitter);
+                    return;
+                }
+            }
+            schedule();
+        }
+
+        private void close() {
+            synchronized (this) {
+                closed = true;
+                outbox.clear();
+            }
+        }
+    }
+
+    // Ouvre le flux d'un utilisateur, après avoir rejoué les événements postérieurs à lastEventId
+    public SseEmitter connect(Long userId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        emitter.onCompletion(() -> remove(userId, emitter));
+        emitter.onTimeout(() -> remove(userId, emitter));
+        emitter.onError(error -> remove(userId, emitter));
+
+        List<Connection> evicted = new ArrayList<>();
+        // Création et enregistrement atomiques vis-à-vis du nettoyage des canaux inactifs
+        Channel channel = channels.compute(userId, (id, existing) -> {
+            Channel current = existing != null ? existing : new Channel(sequence.get());
+            while (current.connections.size() >= maxConnectionsPerUser) {
+                evicted.add(current.connections.remove(0));
+            }
+            current.lastActivity = System.currentTimeMillis();
+            return current;
+        });
+        for (Connection connection : evicted) {
+            connection.close();
+            connection.emitter.complete();
+        }
+
+        // Sous le verrou du canal : aucun événement publié entre le rejeu et l'enregistrement n'est perdu
+        synchronized (channel) {
+            try {
+                List<Event> missed = eventsAfter(channel, lastEventId);
+                if (missed == null) {
+                    emitter.send(toSse(new Event(sequence.get(), RESYNC, Map.of())));
+                } else {
+                    for (Event event : missed) {
+                        emitter.send(toSse(event));
+                    }
+                }
+                channel.connections.add(new Connection(userId, emitter));
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+        }
+        return emitter;
+    }
+
+    // Publie un événement pour chacun des utilisateurs concernés, une fois la transaction validée
+    public void publishAfterCommit(String type, Map<String, Object> data, Long... userIds) {
+        AfterCommit.run(() -> {
+            for (Long userId : userIds) {
+                if (userId != null) {
+                    publish(userId, type, data);
+                }
+            }
+        });
+    }
+
+    private void publish(Long userId, String type, Map<String, Object> data) {
+        Event event = new Event(sequence.incrementAndGet(), type, data);
+        List<Connection> overflowed = new ArrayList<>();
+        // Ajout dans compute : le battement ne peut pas supprimer le canal entre sa lecture et l'ajout
+        // de l'événement, qui serait alors perdu pour le rejeu
+        channels.compute(userId, (id, existing) -> {
+            Channel channel = existing != null ? existing : new Channel(event.sequence() - 1);
+            synchronized (channel) {
+                if (channel.recent.size() >= replaySize) {
+                    channel.droppedUpTo = channel.recent.removeFirst().sequence();
+                }
+                channel.recent.addLast(event);
+                channel.lastActivity = System.currentTimeMillis();
+                for (Connection connection : channel.connections) {
+                    if (!connection.enqueue(() -> toSse(event))) {
+                        overflowed.add(connection);
+                    }
+                }
+            }
+            return channel;
+        });
+        // Client qui ne suit plus : seule sa connexion est fermée, il rattrape l'événement par Last-Event-ID
+        for (Connection connection : overflowed) {
+            log.warn("Request event stream of user {} is not keeping up, closing it", userId);
+            remove(userId, connection.emitter);
+            connection.emitter.complete();
+        }
+    }
+
+    // Battement : garde les connexions ouvertes à travers les proxys et libère celles des clients partis.
+    // Une seule passe sur les canaux, sans envoi direct : le ping est déposé dans la file des connexions
+    // inactives et abandonné si le pool est saturé. Les canaux sans connexion et sans activité récente
+    // sont supprimés.
+    @Scheduled(fixedDelayString = "${files.events.heartbeat-ms:25000}")
+    public void heartbeat() {
+        long idleBefore = System.currentTimeMillis() - replayTtlMs;
+        int connections = 0;
+        for (Map.Entry<Long, Channel> entry : channels.entrySet()) {
+            for (Connection connection : entry.getValue().connections) {
+                connection.heartbeat();
+                connections++;
+            }
+            channels.computeIfPresent(entry.getKey(), (id, channel) ->
+                    channel.connections.isEmpty() && channel.lastActivity < idleBefore ? null : channel);
+        }
+        log.debug("Request event streams: {} connections, {} channels", connections, channels.size());
+    }
+
+    public int connectionCount() {
+        return channels.values().stream().mapToInt(channel -> channel.connections.size()).sum();
+    }
+
+    // Événements manqués depuis lastEventId ; null s'ils ne peuvent pas tous être rejoués
+    private List<Event> eventsAfter(Channel channel, String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return List.of();
+        }
+        int separator = lastEventId.lastIndexOf('.');
+        if (separator < 0 || !lastEventId.substring(0, separator).equals(epoch)) {
+            return null;
+        }
+        long lastSequence;
+        try {
+            lastSequence = Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (lastSequence < channel.droppedUpTo) {
+            return null;
+        }
+        return channel.recent.stream().filter(event -> event.sequence() > lastSequence).toList();
+    }
+
+    private SseEmitter.SseEventBuilder toSse(Event event) {
+        return SseEmitter.event()
+                .id(epoch + "." + event.sequence())
+                .name(event.type())
+                .data(event.data(), MediaType.APPLICATION_JSON);
+    }
+
+    private void remove(Long userId, SseEmitter emitter) {
+        Channel channel = channels.get(userId);
+        if (channel != null) {
+            for (Connection connection : channel.connections) {
+                if (connection.emitter == emitter) {
+                    connection.close();
+                    channel.connections.remove(connection);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        channels.values().forEach(channel -> channel.connections.forEach(connection -> connection.emitter.complete()));
+    }
+}
@@ -1,29 +1,59 @@
 package com.ApplicationGoogleDrive.service;
 
+import com.ApplicationGoogleDrive.dto.AccessDecisionTarget;
+import com.ApplicationGoogleDrive.dto.BulkDecisionRequest;
+import com.ApplicationGoogleDrive.dto.CursorPage;
+import com.ApplicationGoogleDrive.dto.ListingRequest;
 import com.ApplicationGoogleDrive.model.AccessRequest;
 import com.ApplicationGoogleDrive.model.File;
 import com.ApplicationGoogleDrive.model.User;
 import com.ApplicationGoogleDrive.repository.AccessRequestRepository;
+import com.ApplicationGoogleDrive.repository.AccessRequestSpecifications;
 import com.ApplicationGoogleDrive.repository.FileRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Slf4j
 @Service
 public class AccessRequestService {
 
+    // Champs triables des listes de demandes paginées
+    private static final Set<String> REQUEST_SORT_FIELDS = Set.of("requestedAt");
+
     @Autowired
     private AccessRequestRepository accessRequestRepository;
 
     @Autowired
     private FileRepository fileRepository;
 
+    @Autowired
+    private AccessDecisionCache accessDecisionCache;
+
+    @Autowired
+    private FileGrantService fileGrantService;
+
+    @Autowired
+    private ListingVersion listingVersion;
+
+    @Autowired
+    private AccessRequestEvents accessRequestEvents;
+
     @Transactional
     public AccessRequest createRequest(User requester, Long fileId, String message) {
         log.info("Creating access request. Requester: {}, File ID: {}, Message: {}",
@@ -72,7 +102,10 @@ public class AccessRequestService {
                 existingRequest.setMessage(message);
                 existingRequest.setRequestedAt(LocalDateTime.now());
                 existingRequest.setRespondedAt(null);
-                return accessRequestRepository.save(existingRequest);
+                listingVersion.bumpAfterCommit();
+                AccessRequest resubmitted = accessRequestRepository.save(existingRequest);
+                publish(AccessRequestEvents.CREATED, resubmitted);
+                return resubmitted;
             }
         }
 
@@ -89,6 +122,8 @@ public class AccessRequestService {
         newRequest.setRequestedAt(LocalDateTime.now());
 
         AccessRequest savedRequest = accessRequestRepository.save(newRequest);
+        listingVersion.bumpAfterCommit();
+        publish(AccessRequestEvents.CREATED, savedRequest);
         log.info("Access request created successfully with ID: {}", savedRequest.getId());
 
         return savedRequest;
@@ -108,6 +143,24 @@ public class AccessRequestService {
         return requests;
     }
 
+    // Versions paginées par curseur, filtrables par statut
+    public CursorPage<AccessRequest> getRequestsByOwner(User owner, ListingRequest request) {
+        return findRequestsPage(AccessRequestSpecifications.ownedBy(owner.getId()), request);
+    }
+
+    public CursorPage<AccessRequest> getRequestsByRequester(User requester, ListingRequest request) {
+        return findRequestsPage(AccessRequestSpecifications.requestedBy(requester.getId()), request);
+    }
+
+    private CursorPage<AccessRequest> findRequestsPage(Specification<AccessRequest> specification,
+                                                       ListingRequest request) {
+        Sort sort = KeysetCursors.sort(request, REQUEST_SORT_FIELDS, "requestedAt");
+        ScrollPosition position = KeysetCursors.decode(request.getCursor(), sort);
+        return KeysetCursors.toPage(accessRequestRepository.findBy(
+                specification.and(AccessRequestSpecifications.matching(request)),
+                query -> query.sortBy(sort).limit(request.pageSize()).scroll(position)));
+    }
+
     @Transactional
     public AccessRequest updateRequestStatus(Long requestId, User owner, AccessRequest.RequestStatus status) {
         log.info("Updating request {} to status {} by owner {}", requestId, status, owner.getEmail());
@@ -128,11 +181,98 @@ public class AccessRequestService {
         request.setRespondedAt(LocalDateTime.now());
 
         AccessRequest updatedRequest = accessRequestRepository.save(request);
+        fileGrantService.applyStatus(updatedRequest);
+        listingVersion.bumpAfterCommit();
+        accessDecisionCache.invalidate(request.getFile().getId(), request.getRequester().getId());
+        publish(AccessRequestEvents.UPDATED, updatedRequest);
         log.info("Request {} updated successfully to {}", requestId, status);
 
         return updatedRequest;
     }
 
+    // Décision sur plusieurs demandes (ids, ou toutes les demandes en attente d'un fichier) :
+    // mises à jour ensemblistes par lots, sans charger les entités, et résultat de chaque id
+    @Transactional
+    public Map<String, Object> updateRequestStatuses(BulkDecisionRequest decision, User owner,
+                                                     AccessRequest.RequestStatus status) {
+        if (status == AccessRequest.RequestStatus.PENDING) {
+            throw new RuntimeException("Status must be APPROVED or REJECTED");
+        }
+
+        Map<Long, String> results = new LinkedHashMap<>();
+        List<AccessDecisionTarget> targets = new ArrayList<>();
+        boolean hasMore = false;
+
+        if (decision.hasIds()) {
+            Set<Long> requested = new LinkedHashSet<>(decision.getIds());
+            if (requested.size() > BulkDecisionRequest.MAX_REQUESTS) {
+                throw new RuntimeException("At most " + BulkDecisionRequest.MAX_REQUESTS + " requests per call");
+            }
+            Map<Long, AccessDecisionTarget> found = new HashMap<>();
+            for (List<Long> batch : BulkResults.batches(new ArrayList<>(requested))) {
+                accessRequestRepository.findDecisionTargets(batch).forEach(target -> found.put(target.getId(), target));
+            }
+            for (Long id : requested) {
+                AccessDecisionTarget target = found.get(id);
+                if (target == null) {
+                    results.put(id, BulkResults.NOT_FOUND);
+                } else if (!target.getOwnerId().equals(owner.getId())) {
+                    results.put(id, BulkResults.FORBIDDEN);
+                } else {
+                    results.put(id, null);
+                    targets.add(target);
+                }
+            }
+        } else if (decision.getFileId() != null) {
+            File file = fileRepository.findById(decision.getFileId())
+                    .orElseThrow(() -> new RuntimeException("File not found with id: " + decision.getFileId()));
+            if (!file.getOwner().getId().equals(owner.getId())) {
+                throw new RuntimeException("You are not authorized to update requests for this file");
+            }
+            targets = accessRequestRepository.findPendingDecisionTargets(decision.getFileId(),
+                    PageRequest.of(0, BulkDecisionRequest.MAX_REQUESTS + 1));
+            if (targets.size() > BulkDecisionRequest.MAX_REQUESTS) {
+                hasMore = true;
+                targets = targets.subList(0, BulkDecisionRequest.MAX_REQUESTS);
+            }
+        } else {
+            throw new RuntimeException("Provide ids or a fileId");
+        }
+
+        List<Long> changed = new ArrayList<>();
+        Map<Long, List<Long>> requestersByFile = new HashMap<>();
+        for (AccessDecisionTarget target : targets) {
+            if (target.getStatus() == status) {
+                results.put(target.getId(), BulkResults.UNCHANGED);
+            } else {
+                changed.add(target.getId());
+                accessRequestEvents.publishAfterCommit(AccessRequestEvents.UPDATED, eventData(target.getId(),
+                        target.getFileId(), target.getRequesterId(), owner.getId(), status), target.getRequesterId());
+                requestersByFile.computeIfAbsent(target.getFileId(), id -> new ArrayList<>()).add(target.getRequesterId());
+                results.put(target.getId(), status.name().toLowerCase());
+            }
+        }
+
+        LocalDateTime respondedAt = LocalDateTime.now();
+        for (List<Long> batch : BulkResults.batches(changed)) {
+            accessRequestRepository.updateStatuses(batch, status, respondedAt);
+            fileGrantService.applyStatus(batch, status);
+        }
+
+        if (!changed.isEmpty()) {
+            listingVersion.bumpAfterCommit();
+            accessDecisionCache.invalidateAll(requestersByFile);
+            // Le propriétaire reçoit un seul événement récapitulatif
+            Map<String, Object> summary = new HashMap<>();
+            summary.put("status", status);
+            summary.put("count", changed.size());
+            summary.put("fileId", decision.getFileId());
+            accessRequestEvents.publishAfterCommit(AccessRequestEvents.BULK_UPDATED, summary, owner.getId());
+        }
+        log.info("Bulk decision by {}: {} requests set to {}", owner.getEmail(), changed.size(), status);
+        return BulkResults.toResponse(results, hasMore);
+    }
+
     @Transactional
     public void deleteRequest(Long requestId, User user) {
         log.info("Deleting request {} by user {}", requestId, user.getEmail());
@@ -151,6 +291,10 @@ public class AccessRequestService {
         }
 
         accessRequestRepository.delete(request);
+        fileGrantService.revoke(request.getFile().getId(), request.getRequester().getId());
+        listingVersion.bumpAfterCommit();
+        accessDecisionCache.invalidate(request.getFile().getId(), request.getRequester().getId());
+        publish(AccessRequestEvents.DELETED, request);
         log.info("Request {} deleted successfully", requestId);
     }
 
@@ -159,9 +303,7 @@ public class AccessRequestService {
     }
 
     public boolean hasApprovedAccess(Long fileId, Long userId) {
-        return accessRequestRepository.findByFileIdAndRequesterId(fileId, userId)
-                .map(request -> request.getStatus() == AccessRequest.RequestStatus.APPROVED)
-                .orElse(false);
+        return fileGrantService.hasGrant(fileId, userId);
     }
 
     public boolean hasRequestedAccess(Long fileId, Long userId) {
@@ -169,4 +311,22 @@ public class AccessRequestService {
                 .map(request -> request.getStatus() == AccessRequest.RequestStatus.PENDING)
                 .orElse(false);
     }
-}
\ No newline at end of file
+
+    // Événement envoyé au demandeur et au propriétaire après le commit
+    private void publish(String type, AccessRequest request) {
+        accessRequestEvents.publishAfterCommit(type, eventData(request.getId(), request.getFile().getId(),
+                        request.getRequester().getId(), request.getOwner().getId(), request.getStatus()),
+                request.getRequester().getId(), request.getOwner().getId());
+    }
+
+    private static Map<String, Object> eventData(Long requestId, Long fileId, Long requesterId, Long ownerId,
+                                                 AccessRequest.RequestStatus status) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("requestId", requestId);
+        data.put("fileId", fileId);
+        data.put("requesterId", requesterId);
+        data.put("ownerId", ownerId);
+        data.put("status", status);
+        return data;
+    }
+}
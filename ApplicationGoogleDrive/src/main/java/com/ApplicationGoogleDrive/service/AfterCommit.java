@@ -0,0 +1,25 @@
+package com.ApplicationGoogleDrive.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Actions différées jusqu'au commit de la transaction courante (invalidations de cache, files d'attente,
+// suppressions d'octets) : une annulation ne laisse aucun effet. Hors transaction, exécution immédiate.
+final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
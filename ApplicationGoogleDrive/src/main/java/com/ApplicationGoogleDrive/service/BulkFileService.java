@@ -0,0 +1,302 @@
+package com.ApplicationGoogleDrive.service;
+
+import com.ApplicationGoogleDrive.dto.BulkFileRequest;
+import com.ApplicationGoogleDrive.dto.BulkFileTarget;
+import com.ApplicationGoogleDrive.model.Folder;
+import com.ApplicationGoogleDrive.model.User;
+import com.ApplicationGoogleDrive.repository.AccessRequestRepository;
+import com.ApplicationGoogleDrive.repository.FileContentRepository;
+import com.ApplicationGoogleDrive.repository.FileGrantRepository;
+import com.ApplicationGoogleDrive.repository.FileRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Opérations sur plusieurs fichiers en une transaction : quelques instructions ensemblistes
+// (IN sur des lots d'ids) au lieu d'une suppression entité par entité. Les octets ne sont
+// supprimés qu'après le commit, en parallèle, et la réponse donne le résultat de chaque id.
+@Slf4j
+@Service
+public class BulkFileService {
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private AccessRequestRepository accessRequestRepository;
+
+    @Autowired
+    private FileGrantRepository fileGrantRepository;
+
+    @Autowired
+    private FileContentRepository fileContentRepository;
+
+    @Autowired
+    private ContentStoreService contentStoreService;
+
+    @Autowired
+    private AccessDecisionCache accessDecisionCache;
+
+    @Autowired
+    private FileSearchIndex fileSearchIndex;
+
+    @Autowired
+    private ContentSearchIndex contentSearchIndex;
+
+    @Autowired
+    private ListingVersion listingVersion;
+
+    @Autowired
+    private FolderService folderService;
+
+    @Autowired
+    private StorageUsageService storageUsageService;
+
+    private final ThreadPoolExecutor deletionExecutor;
+
+    public BulkFileService(@Value("${files.bulk.delete-workers:4}") int workers,
+                           @Value("${files.bulk.delete-queue-capacity:10000}") int queueCapacity) {
+        // File pleine : le thread qui a commité supprime lui-même, une suppression n'est jamais perdue
+        this.deletionExecutor = WorkerPools.bounded("bulk-delete", workers, queueCapacity, Thread.NORM_PRIORITY,
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Transactional
+    public Map<String, Object> deleteFiles(BulkFileRequest request, User user) {
+        Map<Long, String> results = new LinkedHashMap<>();
+        Selection selection = select(request, null, user, results);
+        List<BulkFileTarget> owned = selection.owned();
+        List<Long> ids = owned.stream().map(BulkFileTarget::getId).toList();
+
+        for (List<Long> batch : BulkResults.batches(ids)) {
+            accessRequestRepository.deleteByFileIds(batch);
+            fileGrantRepository.revokeAllForFiles(batch);
+            fileContentRepository.deleteByFileIds(batch);
+            fileRepository.deleteAllByIds(batch);
+        }
+
+        // Verrous dans l'ordre commun (voir FileService) : compteurs, dossiers, contenus
+        Map<Long, long[]> folderDeltas = new HashMap<>();
+        Map<String, long[]> removedByType = new HashMap<>();
+        for (BulkFileTarget target : owned) {
+            addDelta(folderDeltas, target.getFolderId(), -1, -sizeOf(target));
+            long[] removed = removedByType.computeIfAbsent(target.getFileType(), type -> new long[2]);
+            removed[0]++;
+            removed[1] += sizeOf(target);
+        }
+        // Utilisation du stockage : une instruction par catégorie de type
+        storageUsageService.recordFilesRemoved(user.getId(), removedByType);
+        // Cumuls des dossiers : un delta par dossier, répercuté sur ses ancêtres
+        folderService.addToRollups(folderDeltas);
+
+        // Contenu partagé : une seule décrémentation par empreinte, quel que soit le nombre de fichiers
+        Map<String, Long> references = owned.stream()
+                .filter(target -> target.getContentHash() != null)
+                .collect(Collectors.groupingBy(BulkFileTarget::getContentHash, Collectors.counting()));
+        List<ContentStoreService.OrphanedContent> orphaned = new ArrayList<>(contentStoreService.releaseAll(references));
+        owned.stream()
+                .filter(target -> target.getContentHash() == null)
+                .forEach(target -> orphaned.add(new ContentStoreService.OrphanedContent(null, target.getFilePath())));
+
+        owned.forEach(target -> results.put(target.getId(), "deleted"));
+        if (!ids.isEmpty()) {
+            accessDecisionCache.invalidateFiles(ids);
+            listingVersion.bumpAfterCommit();
+            AfterCommit.run(() -> {
+                ids.forEach(fileSearchIndex::remove);
+                ids.forEach(contentSearchIndex::remove);
+                orphaned.forEach(content -> deletionExecutor.execute(() -> deleteStoredBytes(content)));
+            });
+        }
+        log.info("Bulk delete by user {}: {} deleted, {} contents to remove",
+                user.getId(), ids.size(), orphaned.size());
+        return BulkResults.toResponse(results, selection.truncated());
+    }
+
+    @Transactional
+    public Map<String, Object> updateVisibility(BulkFileRequest request, User user) {
+        if (request.getIsPublic() == null) {
+            throw new RuntimeException("isPublic is required");
+        }
+        boolean isPublic = request.getIsPublic();
+
+        Map<Long, String> results = new LinkedHashMap<>();
+        Selection selection = select(request, isPublic, user, results);
+        List<Long> changed = new ArrayList<>();
+        for (BulkFileTarget target : selection.owned()) {
+            if (target.isPublic() == isPublic) {
+                results.put(target.getId(), BulkResults.UNCHANGED);
+            } else {
+                changed.add(target.getId());
+                results.put(target.getId(), "updated");
+            }
+        }
+
+        for (List<Long> batch : BulkResults.batches(changed)) {
+            fileRepository.updateVisibility(batch, isPublic);
+        }
+
+        if (!changed.isEmpty()) {
+            accessDecisionCache.invalidateFiles(changed);
+            listingVersion.bumpAfterCommit();
+            AfterCommit.run(() -> changed.forEach(id -> fileSearchIndex.updateVisibility(id, isPublic)));
+        }
+        return BulkResults.toResponse(results, selection.truncated());
+    }
+
+    // Déplacement vers un dossier (folderId null : racine) ; seuls les ids sont acceptés
+    @Transactional
+    public Map<String, Object> moveFiles(BulkFileRequest request, User user) {
+        if (!request.hasIds()) {
+            throw new RuntimeException("Provide the ids of the files to move");
+        }
+        Folder destination = folderService.requireOwnedFolder(request.getFolderId(), user);
+        Long destinationId = destination != null ? destination.getId() : null;
+
+        Map<Long, String> results = new LinkedHashMap<>();
+        Selection selection = select(request, null, user, results);
+        List<Long> moved = new ArrayList<>();
+        Map<Long, long[]> folderDeltas = new HashMap<>();
+        for (BulkFileTarget target : selection.owned()) {
+            if (Objects.equals(target.getFolderId(), destinationId)) {
+                results.put(target.getId(), BulkResults.UNCHANGED);
+            } else {
+                moved.add(target.getId());
+                addDelta(folderDeltas, target.getFolderId(), -1, -sizeOf(target));
+                addDelta(folderDeltas, destinationId, 1, sizeOf(target));
+                results.put(target.getId(), "moved");
+            }
+        }
+
+        for (List<Long> batch : BulkResults.batches(moved)) {
+            fileRepository.moveToFolder(batch, destinationId);
+        }
+        folderService.addToRollups(folderDeltas);
+
+        if (!moved.isEmpty()) {
+            listingVersion.bumpAfterCommit();
+        }
+        return BulkResults.toResponse(results, selection.truncated());
+    }
+
+    // Suppression d'un dossier avec tout son contenu. Le sous-arbre reste verrouillé jusqu'au commit :
+    // aucun fichier ne peut y être ajouté entre la sélection et la suppression.
+    @Transactional
+    public Map<String, Object> deleteFolder(Long folderId, User user) {
+        // Compteurs verrouillés avant le sous-arbre : ordre commun des verrous (voir FileService)
+        storageUsageService.lockUsage(user.getId());
+        Folder folder = folderService.lockSubtree(folderId, null, user);
+        List<Long> fileIds = fileRepository.findIdsInSubtree(folder.getPath(),
+                PageRequest.of(0, BulkFileRequest.MAX_FILES + 1));
+        if (fileIds.size() > BulkFileRequest.MAX_FILES) {
+            throw new RuntimeException("This folder contains more than " + BulkFileRequest.MAX_FILES
+                    + " files, delete part of its content first");
+        }
+
+        Map<String, Object> response;
+        if (fileIds.isEmpty()) {
+            response = BulkResults.toResponse(new LinkedHashMap<>(), false);
+        } else {
+            BulkFileRequest contents = new BulkFileRequest();
+            contents.setIds(fileIds);
+            response = deleteFiles(contents, user);
+        }
+        response.put("deletedFolders", folderService.deleteSubtree(folder));
+        return response;
+    }
+
+    // Fichiers sélectionnés appartenant à l'utilisateur ; les autres ids reçoivent leur résultat ici.
+    // targetVisibility exclut du filtre les fichiers qui ont déjà cette visibilité.
+    private Selection select(BulkFileRequest request, Boolean targetVisibility, User user, Map<Long, String> results) {
+        if (request.hasIds()) {
+            Set<Long> requested = new LinkedHashSet<>(request.getIds());
+            if (requested.size() > BulkFileRequest.MAX_FILES) {
+                throw new RuntimeException("At most " + BulkFileRequest.MAX_FILES + " files per request");
+            }
+
+            Map<Long, BulkFileTarget> found = new HashMap<>();
+            for (List<Long> batch : BulkResults.batches(new ArrayList<>(requested))) {
+                found.putAll(fileRepository.findBulkTargets(batch).stream()
+                        .collect(Collectors.toMap(BulkFileTarget::getId, Function.identity())));
+            }
+
+            List<BulkFileTarget> owned = new ArrayList<>();
+            for (Long id : requested) {
+                BulkFileTarget target = found.get(id);
+                if (target == null) {
+                    results.put(id, BulkResults.NOT_FOUND);
+                } else if (!target.getOwnerId().equals(user.getId())) {
+                    results.put(id, BulkResults.FORBIDDEN);
+                } else {
+                    // Réservé pour garder l'ordre de la requête dans la réponse
+                    results.put(id, null);
+                    owned.add(target);
+                }
+            }
+            return new Selection(owned, false);
+        }
+
+        if (!request.hasFilter()) {
+            throw new RuntimeException("Provide ids or a filter (q, type)");
+        }
+        // Un lot de plus que la limite pour savoir s'il reste des fichiers à traiter
+        List<BulkFileTarget> matching = fileRepository.findBulkTargetsMatching(user.getId(),
+                blankToNull(request.getQ()), blankToNull(request.getType()), targetVisibility,
+                PageRequest.of(0, BulkFileRequest.MAX_FILES + 1));
+        boolean truncated = matching.size() > BulkFileRequest.MAX_FILES;
+        List<BulkFileTarget> owned = truncated ? matching.subList(0, BulkFileRequest.MAX_FILES) : matching;
+        return new Selection(owned, truncated);
+    }
+
+    private record Selection(List<BulkFileTarget> owned, boolean truncated) {
+    }
+
+    private void deleteStoredBytes(ContentStoreService.OrphanedContent content) {
+        try {
+            contentStoreService.deleteOrphaned(content);
+        } catch (IOException | RuntimeException e) {
+            // Octets orphelins sans ligne en base : sans danger, seulement de l'espace perdu
+            log.warn("Could not delete stored content {}: {}", content.storageKey(), e.getMessage());
+        }
+    }
+
+    private static void addDelta(Map<Long, long[]> deltas, Long folderId, long files, long bytes) {
+        if (folderId == null) {
+            return;
+        }
+        long[] delta = deltas.computeIfAbsent(folderId, id -> new long[2]);
+        delta[0] += files;
+        delta[1] += bytes;
+    }
+
+    private static long sizeOf(BulkFileTarget target) {
+        return target.getFileSize() != null ? target.getFileSize() : 0L;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Les suppressions en attente se terminent ; les octets restants seraient seulement orphelins
+        deletionExecutor.shutdown();
+    }
+}
@@ -0,0 +1,54 @@
+package com.ApplicationGoogleDrive.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Outils communs aux opérations groupées : découpage des listes IN et réponse avec le résultat de chaque id
+final class BulkResults {
+
+    // Taille des listes IN envoyées à MySQL
+    static final int BATCH_SIZE = 500;
+
+    static final String NOT_FOUND = "not_found";
+    static final String FORBIDDEN = "forbidden";
+    static final String UNCHANGED = "unchanged";
+
+    private static final Set<String> FAILURES = Set.of(NOT_FOUND, FORBIDDEN);
+
+    private BulkResults() {
+    }
+
+    static <T> List<List<T>> batches(List<T> values) {
+        List<List<T>> batches = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += BATCH_SIZE) {
+            batches.add(values.subList(from, Math.min(from + BATCH_SIZE, values.size())));
+        }
+        return batches;
+    }
+
+    // hasMore : la sélection dépassait la limite, relancer la même requête pour la suite
+    static Map<String, Object> toResponse(Map<Long, String> results, boolean hasMore) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        int succeeded = 0;
+        for (Map.Entry<Long, String> result : results.entrySet()) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("id", result.getKey());
+            item.put("status", result.getValue());
+            items.add(item);
+            if (!FAILURES.contains(result.getValue())) {
+                succeeded++;
+            }
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("requested", results.size());
+        response.put("succeeded", succeeded);
+        response.put("failed", results.size() - succeeded);
+        response.put("hasMore", hasMore);
+        response.put("results", items);
+        return response;
+    }
+}
@@ -0,0 +1,128 @@
+package com.ApplicationGoogleDrive.service;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+// Extraction du texte d'un fichier : texte brut (txt, csv, json, xml, html...), PDF,
+// et documents bureautiques ZIP + XML (docx, xlsx, pptx, odt, ods, odp).
+// Les anciens formats binaires (doc, xls, ppt) ne sont pas pris en charge.
+@Component
+public class ContentExtractor {
+
+    private static final Pattern XML_TAG = Pattern.compile("<[^>]+>");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern OOXML_PART = Pattern.compile(
+            "word/(document|header\\d*|footer\\d*)\\.xml|xl/sharedStrings\\.xml|ppt/slides/slide\\d+\\.xml|content\\.xml");
+
+    @Value("${files.content-index.max-chars:1000000}")
+    private int maxChars;
+
+    // Vide si le type n'est pas pris en charge ; encoding est l'encodage des octets stockés (gzip ou null)
+    public Optional<String> extract(Path path, String encoding, String fileType, String fileName) throws IOException {
+        String type = fileType != null ? fileType.toLowerCase(Locale.ROOT) : "";
+        String extension = extensionOf(fileName);
+
+        if (type.startsWith("text/") || type.endsWith("/json") || type.endsWith("/xml") || type.endsWith("+xml")
+                || type.endsWith("/csv") || isTextExtension(extension)) {
+            return Optional.of(readText(path, encoding));
+        }
+        if (encoding != null) {
+            // Seuls les formats texte sont stockés compressés
+            return Optional.empty();
+        }
+        if (type.equals("application/pdf") || extension.equals("pdf")) {
+            return Optional.of(extractPdf(path));
+        }
+        if (type.startsWith("application/vnd.openxmlformats-officedocument")
+                || type.startsWith("application/vnd.oasis.opendocument")
+                || extension.matches("docx|xlsx|pptx|odt|ods|odp")) {
+            return Optional.of(extractZippedXml(path));
+        }
+        return Optional.empty();
+    }
+
+    private String readText(Path path, String encoding) throws IOException {
+        char[] buffer = new char[8192];
+        StringBuilder text = new StringBuilder();
+        try (Reader reader = new BufferedReader(new InputStreamReader(open(path, encoding),
+                StandardCharsets.UTF_8.newDecoder()))) {
+            int read;
+            while (text.length() < maxChars
+                    && (read = reader.read(buffer, 0, Math.min(buffer.length, maxChars - text.length()))) != -1) {
+                text.append(buffer, 0, read);
+            }
+        } catch (MalformedInputException e) {
+            // Fichier texte dans un autre encodage : relecture en ISO-8859-1, qui accepte tous les octets
+            try (InputStream in = open(path, encoding)) {
+                return new String(in.readNBytes(maxChars), StandardCharsets.ISO_8859_1);
+            }
+        }
+        return text.toString();
+    }
+
+    private InputStream open(Path path, String encoding) throws IOException {
+        return ContentStoreService.decode(Files.newInputStream(path), encoding);
+    }
+
+    private String extractPdf(Path path) throws IOException {
+        try (PDDocument document = Loader.loadPDF(path.toFile())) {
+            String text = new PDFTextStripper().getText(document);
+            return text.length() > maxChars ? text.substring(0, maxChars) : text;
+        }
+    }
+
+    private String extractZippedXml(Path path) throws IOException {
+        StringBuilder text = new StringBuilder();
+        try (ZipFile zip = new ZipFile(path.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements() && text.length() < maxChars) {
+                ZipEntry entry = entries.nextElement();
+                if (!OOXML_PART.matcher(entry.getName()).matches()) {
+                    continue;
+                }
+                // Lecture bornée : le XML est bien plus volumineux que le texte, mais pas sans limite
+                try (InputStream in = zip.getInputStream(entry)) {
+                    String xml = new String(in.readNBytes(maxChars * 8), StandardCharsets.UTF_8);
+                    text.append(unescape(XML_TAG.matcher(xml).replaceAll(" "))).append('\n');
+                }
+            }
+        }
+        String normalized = WHITESPACE.matcher(text).replaceAll(" ").trim();
+        return normalized.length() > maxChars ? normalized.substring(0, maxChars) : normalized;
+    }
+
+    private String unescape(String xmlText) {
+        return xmlText.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"")
+                .replace("&apos;", "'").replace("&amp;", "&");
+    }
+
+    private boolean isTextExtension(String extension) {
+        return extension.matches("txt|csv|tsv|md|json|xml|html|htm|log|yml|yaml|properties|java|js|ts|py|sql");
+    }
+
+    private String extensionOf(String fileName) {
+        if (fileName == null || fileName.lastIndexOf('.') < 0) {
+            return "";
+        }
+        return fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,207 @@
+package com.ApplicationGoogleDrive.service;
+
+import com.ApplicationGoogleDrive.model.File;
+import com.ApplicationGoogleDrive.model.FileContent;
+import com.ApplicationGoogleDrive.repository.FileContentRepository;
+import com.ApplicationGoogleDrive.repository.FileRepository;
+import com.ApplicationGoogleDrive.storage.StorageBackend;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Extraction du contenu en arrière-plan, hors de la requête d'upload.
+// Pool de threads borné avec une file d'attente bornée : quand elle est pleine, le fichier est
+// simplement laissé de côté et le balayage périodique le reprendra (un fichier sans ligne
+// file_contents est en attente). Le texte extrait est enregistré pour reconstruire l'index au démarrage.
+@Slf4j
+@Service
+public class ContentIndexingService {
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private FileContentRepository fileContentRepository;
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @Autowired
+    private ContentExtractor contentExtractor;
+
+    @Autowired
+    private ContentSearchIndex contentSearchIndex;
+
+    private final ThreadPoolExecutor executor;
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicLong extractedDocuments = new AtomicLong();
+    private final AtomicLong extractedBytes = new AtomicLong();
+    private final AtomicLong failedDocuments = new AtomicLong();
+    private final AtomicLong deferredDocuments = new AtomicLong();
+    private volatile boolean ready = false;
+
+    @Value("${files.content-index.sweep-batch-size:500}")
+    private int sweepBatchSize;
+
+    public ContentIndexingService(@Value("${files.content-index.workers:2}") int workers,
+                                  @Value("${files.content-index.queue-capacity:1000}") int queueCapacity) {
+        this.executor = WorkerPools.bounded("content-indexer", workers, queueCapacity, Thread.MIN_PRIORITY,
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Appelé à l'enregistrement d'un fichier : l'extraction ne démarre qu'après le commit
+    public void enqueueAfterCommit(Long fileId) {
+        AfterCommit.run(() -> enqueue(fileId));
+    }
+
+    public void removeAfterCommit(Long fileId) {
+        AfterCommit.run(() -> contentSearchIndex.remove(fileId));
+    }
+
+    // Ne bloque jamais : renvoie false si la file est pleine (le balayage reprendra le fichier)
+    public boolean enqueue(Long fileId) {
+        if (!inFlight.add(fileId)) {
+            return true;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    process(fileId);
+                } finally {
+                    inFlight.remove(fileId);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(fileId);
+            deferredDocuments.incrementAndGet();
+            return false;
+        }
+    }
+
+    void process(Long fileId) {
+        File file = fileRepository.findById(fileId).orElse(null);
+        if (file == null) {
+            return;
+        }
+
+        FileContent content = new FileContent();
+        content.setFileId(fileId);
+        content.setExtractedAt(LocalDateTime.now());
+        try {
+            Optional<String> text = contentExtractor.extract(storageBackend.resolve(file.getFilePath()),
+                    file.getStorageEncoding(), file.getFileType(), file.getFileName());
+            if (text.isPresent()) {
+                content.setStatus(FileContent.ExtractionStatus.EXTRACTED);
+                content.setText(text.get());
+                extractedDocuments.incrementAndGet();
+                extractedBytes.addAndGet(file.getFileSize() != null ? file.getFileSize() : 0);
+            } else {
+                content.setStatus(FileContent.ExtractionStatus.UNSUPPORTED);
+            }
+        } catch (Exception e) {
+            // Fichier corrompu ou illisible : marqué en échec pour ne pas être retenté en boucle
+            log.warn("Content extraction failed for file {}: {}", fileId, e.getMessage());
+            content.setStatus(FileContent.ExtractionStatus.FAILED);
+            failedDocuments.incrementAndGet();
+        }
+
+        // Le fichier a pu être supprimé pendant l'extraction
+        if (!fileRepository.existsById(fileId)) {
+            return;
+        }
+        fileContentRepository.save(content);
+        if (content.getStatus() == FileContent.ExtractionStatus.EXTRACTED) {
+            contentSearchIndex.index(fileId, content.getText());
+        }
+    }
+
+    // Reprend les fichiers en attente (file pleine, redémarrage, fichiers antérieurs à l'index)
+    @Scheduled(fixedDelayString = "${files.content-index.sweep-interval-ms:30000}",
+            initialDelayString = "${files.content-index.sweep-interval-ms:30000}")
+    public void sweepPendingFiles() {
+        if (!ready || executor.getQueue().remainingCapacity() == 0) {
+            return;
+        }
+        int capacity = executor.getQueue().remainingCapacity();
+        List<Long> pending = fileContentRepository.findPendingFileIds(
+                PageRequest.of(0, Math.min(sweepBatchSize, capacity)));
+        for (Long fileId : pending) {
+            if (!enqueue(fileId)) {
+                break;
+            }
+        }
+    }
+
+    // Reconstruction de l'index depuis le texte déjà extrait, sans bloquer le démarrage
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildInBackground() {
+        Thread rebuild = new Thread(this::rebuild, "content-index-rebuild");
+        rebuild.setDaemon(true);
+        rebuild.start();
+    }
+
+    void rebuild() {
+        long start = System.currentTimeMillis();
+        try {
+            Long afterId = 0L;
+            List<FileContent> batch;
+            do {
+                batch = fileContentRepository.findExtractedAfter(afterId, PageRequest.of(0, 500));
+                for (FileContent content : batch) {
+                    contentSearchIndex.index(content.getFileId(), content.getText());
+                }
+                if (!batch.isEmpty()) {
+                    afterId = batch.get(batch.size() - 1).getFileId();
+                }
+            } while (batch.size() == 500);
+
+            ready = true;
+            log.info("Content index built: {} documents, {} terms in {} ms",
+                    contentSearchIndex.documentCount(), contentSearchIndex.termCount(),
+                    System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.error("Content index rebuild failed, content search is disabled", e);
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("ready", ready);
+        statistics.put("documents", contentSearchIndex.documentCount());
+        statistics.put("terms", contentSearchIndex.termCount());
+        statistics.put("queued", executor.getQueue().size());
+        statistics.put("active", executor.getActiveCount());
+        statistics.put("extractedSinceStartup", extractedDocuments.get());
+        statistics.put("extractedBytesSinceStartup", extractedBytes.get());
+        statistics.put("failedSinceStartup", failedDocuments.get());
+        statistics.put("deferredSinceStartup", deferredDocuments.get());
+        return statistics;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,112 @@
+package com.ApplicationGoogleDrive.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Index inversé du contenu des fichiers, au niveau du mot (beaucoup plus compact que des n-grammes
+// sur des textes longs). Les termes sont triés : le dernier mot de la requête est cherché comme préfixe.
+@Component
+public class ContentSearchIndex {
+
+    private static final int MAX_TERM_LENGTH = 40;
+    private static final int MAX_PREFIX_EXPANSION = 200;
+
+    private final NavigableMap<String, Set<Long>> postings = new ConcurrentSkipListMap<>();
+    private final Map<Long, String[]> documentTerms = new ConcurrentHashMap<>();
+
+    public void index(Long fileId, String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (String token : FileSearchIndex.tokenize(text)) {
+            if (token.length() <= MAX_TERM_LENGTH) {
+                terms.add(token);
+            }
+        }
+
+        String[] previous = documentTerms.put(fileId, terms.toArray(new String[0]));
+        if (previous != null) {
+            for (String term : previous) {
+                if (!terms.contains(term)) {
+                    removePosting(term, fileId);
+                }
+            }
+        }
+        for (String term : terms) {
+            postings.computeIfAbsent(term, key -> ConcurrentHashMap.newKeySet()).add(fileId);
+        }
+    }
+
+    public void remove(Long fileId) {
+        String[] previous = documentTerms.remove(fileId);
+        if (previous != null) {
+            for (String term : previous) {
+                removePosting(term, fileId);
+            }
+        }
+    }
+
+    // Fichiers contenant tous les mots de la requête, les plus récents (id décroissant) d'abord
+    public List<Long> search(String query, int maxCandidates) {
+        List<String> tokens = FileSearchIndex.tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        Set<Long> candidates = null;
+        for (int i = 0; i < tokens.size(); i++) {
+            Set<Long> matching = i == tokens.size() - 1 ? prefixMatches(tokens.get(i)) : exactMatches(tokens.get(i));
+            if (candidates == null) {
+                candidates = new HashSet<>(matching);
+            } else {
+                candidates.retainAll(matching);
+            }
+            if (candidates.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        List<Long> ranked = new ArrayList<>(candidates);
+        ranked.sort(Comparator.reverseOrder());
+        return ranked.size() > maxCandidates ? ranked.subList(0, maxCandidates) : ranked;
+    }
+
+    public int documentCount() {
+        return documentTerms.size();
+    }
+
+    public int termCount() {
+        return postings.size();
+    }
+
+    private Set<Long> exactMatches(String term) {
+        return postings.getOrDefault(term, Set.of());
+    }
+
+    private Set<Long> prefixMatches(String prefix) {
+        Set<Long> matching = new HashSet<>();
+        int expanded = 0;
+        for (Set<Long> ids : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            matching.addAll(ids);
+            if (++expanded >= MAX_PREFIX_EXPANSION) {
+                break;
+            }
+        }
+        return matching;
+    }
+
+    private void removePosting(String term, Long fileId) {
+        postings.computeIfPresent(term, (key, ids) -> {
+            ids.remove(fileId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+}
@@ -0,0 +1,242 @@
+package com.ApplicationGoogleDrive.service;
+
+import com.ApplicationGoogleDrive.model.StoredContent;
+import com.ApplicationGoogleDrive.repository.StoredContentRepository;
+import com.ApplicationGoogleDrive.storage.StorageBackend;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Stockage adressé par contenu : un seul exemplaire des octets par SHA-256, partagé par compteur de références
+@Slf4j
+@Service
+public class ContentStoreService {
+
+    private static final int RELEASE_BATCH_SIZE = 500;
+
+    @Autowired
+    private StoredContentRepository storedContentRepository;
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @Autowired
+    private RenditionService renditionService;
+
+    public static final String GZIP = "gzip";
+
+    // Contenu écrit dans la zone temporaire d'un volume, avec son empreinte calculée au fil de l'écriture.
+    // encoding vaut "gzip" si les octets écrits sont compressés (null sinon) ; hash et size décrivent
+    // toujours le contenu d'origine.
+    public record StagedContent(Path path, String hash, long size, int volume, String encoding) {
+        public StagedContent(Path path, String hash, long size, int volume) {
+            this(path, hash, size, volume, null);
+        }
+    }
+
+    // Emplacement du contenu stocké et encodage de ses octets
+    public record StoredObject(String storageKey, String encoding) {
+    }
+
+    // Contenu qui n'a plus de référence, dont les octets sont à supprimer après le commit.
+    // hash vaut null pour un fichier historique stocké hors du stockage dédupliqué.
+    public record OrphanedContent(String hash, String storageKey) {
+    }
+
+    @Value("${files.compression.enabled:true}")
+    private boolean compressionEnabled;
+
+    @Value("${files.compression.types:text/,application/json,application/xml,application/javascript,application/x-ndjson,application/csv,application/sql,+xml,+json}")
+    private String[] compressibleTypes;
+
+    public StagedContent stage(InputStream in, String contentType) throws IOException {
+        int volume = storageBackend.selectVolume();
+        Path tempFile = storageBackend.createTempFile(volume);
+        MessageDigest digest = newDigest();
+        boolean compress = isCompressible(contentType);
+
+        long size = 0;
+        byte[] buffer = new byte[65536];
+        try (OutputStream out = compress
+                ? new GZIPOutputStream(Files.newOutputStream(tempFile), 65536)
+                : Files.newOutputStream(tempFile)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+                out.write(buffer, 0, read);
+                size += read;
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+
+        return new StagedContent(tempFile, toHex(digest.digest()), size, volume, compress ? GZIP : null);
+    }
+
+    // Texte, JSON, CSV, XML, journaux... : stockés compressés en gzip, que les navigateurs décodent eux-mêmes
+    public boolean isCompressible(String contentType) {
+        if (!compressionEnabled || contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase();
+        for (String compressible : compressibleTypes) {
+            String prefix = compressible.trim();
+            if (prefix.startsWith("+") ? type.contains(prefix) : type.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Flux du contenu d'origine, décompressé si nécessaire
+    public static InputStream decode(InputStream stored, String encoding) throws IOException {
+        if (GZIP.equals(encoding)) {
+            return new GZIPInputStream(stored, 65536);
+        }
+        return stored;
+    }
+
+    // Ajoute une référence au contenu et place les octets s'ils ne sont pas déjà stockés.
+    // Renvoie la clé de stockage à enregistrer dans File.filePath et l'encodage des octets stockés,
+    // qui est celui du premier exemplaire si le contenu existait déjà.
+    @Transactional
+    public StoredObject commit(StagedContent staged) throws IOException {
+        String newKey = storageBackend.buildKey(staged.volume(), objectId(staged.hash(), staged.encoding()));
+
+        // L'upsert verrouille la ligne : une suppression concurrente du dernier exemplaire attend notre commit
+        storedContentRepository.upsertReference(staged.hash(), staged.size(), newKey, staged.encoding());
+        StoredContent content = storedContentRepository.findById(staged.hash())
+                .orElseThrow(() -> new IllegalStateException("Stored content vanished: " + staged.hash()));
+        String storageKey = storageKeyOf(content);
+
+        if (storageKey.equals(newKey)) {
+            // En cas de rollback les octets restent orphelins, ce qui est sans danger : un prochain upload
+            // identique les réutilisera, et la clé porte l'encodage, donc ces octets sont bien ceux attendus
+            storageBackend.moveIn(staged.path(), storageKey);
+        } else {
+            Files.deleteIfExists(staged.path());
+            log.info("Deduplicated content {} ({} bytes)", staged.hash(), staged.size());
+        }
+        return new StoredObject(storageKey, content.getEncoding());
+    }
+
+    // Upload instantané d'un contenu que l'utilisateur possède déjà (vérifié par FileService) : aucun octet
+    // n'est transféré.
+    // Renvoie l'emplacement du contenu, ou vide si ce contenu n'est pas stocké.
+    @Transactional
+    public Optional<StoredObject> addReference(String hash, long size) {
+        String normalizedHash = hash.toLowerCase();
+        if (storedContentRepository.incrementIfPresent(normalizedHash, size) == 0) {
+            return Optional.empty();
+        }
+        return storedContentRepository.findById(normalizedHash)
+                .map(content -> new StoredObject(storageKeyOf(content), content.getEncoding()));
+    }
+
+    // Retire une référence. Renvoie le contenu si c'était la dernière : comme pour releaseAll, l'appelant
+    // supprime ses octets après le commit (deleteOrphaned).
+    @Transactional
+    public Optional<OrphanedContent> release(String hash) {
+        StoredContent content = storedContentRepository.findByHashForUpdate(hash).orElse(null);
+        if (content == null) {
+            return Optional.empty();
+        }
+
+        if (content.getReferenceCount() <= 1) {
+            storedContentRepository.delete(content);
+            log.info("Released the last reference to content {}", hash);
+            return Optional.of(new OrphanedContent(hash, storageKeyOf(content)));
+        }
+        content.setReferenceCount(content.getReferenceCount() - 1);
+        return Optional.empty();
+    }
+
+    // Retire plusieurs références d'un coup (nombre de fichiers supprimés par empreinte).
+    // Renvoie les contenus qui n'ont plus de référence : l'appelant supprime leurs octets après le commit
+    // (deleteOrphaned), une suppression annulée ne doit pas effacer de contenu.
+    @Transactional
+    public List<OrphanedContent> releaseAll(Map<String, Long> references) {
+        List<OrphanedContent> orphaned = new ArrayList<>();
+        List<String> hashes = new ArrayList<>(new TreeSet<>(references.keySet()));
+        for (int from = 0; from < hashes.size(); from += RELEASE_BATCH_SIZE) {
+            List<StoredContent> contents = storedContentRepository.findAllByHashForUpdate(
+                    hashes.subList(from, Math.min(from + RELEASE_BATCH_SIZE, hashes.size())));
+
+            List<StoredContent> emptied = new ArrayList<>();
+            for (StoredContent content : contents) {
+                long remaining = content.getReferenceCount() - references.get(content.getHash());
+                if (remaining <= 0) {
+                    emptied.add(content);
+                    orphaned.add(new OrphanedContent(content.getHash(), storageKeyOf(content)));
+                } else {
+                    // Mises à jour regroupées par Hibernate au flush (hibernate.jdbc.batch_size)
+                    content.setReferenceCount(remaining);
+                }
+            }
+            storedContentRepository.deleteAllInBatch(emptied);
+        }
+        return orphaned;
+    }
+
+    // Suppression des octets d'un contenu orphelin, hors de la transaction qui l'a libéré.
+    // La clé dérive de l'empreinte et de l'encodage : un upload du même contenu et du même encodage commité
+    // entre-temps a recréé la ligne et réutilise les octets encore présents (moveIn ne les remplace pas),
+    // qui sont alors conservés.
+    // Le verrou pris sur l'empreinte (verrou d'intervalle si la ligne n'existe pas, MySQL en REPEATABLE READ)
+    // fait attendre un tel upload jusqu'à la fin de la suppression ; il place ensuite ses propres octets.
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void deleteOrphaned(OrphanedContent orphan) throws IOException {
+        if (orphan.hash() != null) {
+            Optional<StoredContent> revived = storedContentRepository.findByHashForUpdate(orphan.hash());
+            if (revived.isPresent() && storageKeyOf(revived.get()).equals(orphan.storageKey())) {
+                log.info("Content {} was stored again before its bytes were removed, keeping them", orphan.hash());
+                return;
+            }
+        }
+        storageBackend.delete(orphan.storageKey());
+        renditionService.deleteRenditions(orphan.storageKey());
+    }
+
+    // Identifiant des octets stockés : l'empreinte, suivie de l'encodage s'ils sont compressés
+    // ("<sha256>.gzip"). Des octets orphelins encore sur le disque ne sont ainsi réutilisés que par un
+    // contenu stocké avec le même encodage.
+    static String objectId(String hash, String encoding) {
+        return encoding != null ? hash + "." + encoding : hash;
+    }
+
+    private String storageKeyOf(StoredContent content) {
+        return content.getStorageKey() != null ? content.getStorageKey() : content.getHash();
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public static String toHex(byte[] digest) {
+        return HexFormat.of().formatHex(digest);
+    }
+}
@@ -0,0 +1,83 @@
+package com.ApplicationGoogleDrive.service;
+
+import com.ApplicationGoogleDrive.model.AccessRequest;
+import com.ApplicationGoogleDrive.repository.FileGrantRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+
+// Maintient file_grants à partir des décisions sur les demandes d'accès
+@Slf4j
+@Service
+public class FileGrantService {
+
+    @Autowired
+    private FileGrantRepository fileGrantRepository;
+
+    // Resynchronisation complète à chaque démarrage (réparation manuelle) ; sinon seulement à la création de la table
+    @Value("${files.grants.sync-on-startup:false}")
+    private boolean syncOnStartup;
+
+    public boolean hasGrant(Long fileId, Long userId) {
+        return fileGrantRepository.existsByFileIdAndUserId(fileId, userId);
+    }
+
+    // Appelé dans la transaction qui change le statut de la demande
+    @Transactional
+    public void applyStatus(AccessRequest request) {
+        Long fileId = request.getFile().getId();
+        Long userId = request.getRequester().getId();
+        if (request.getStatus() == AccessRequest.RequestStatus.APPROVED) {
+            fileGrantRepository.grant(fileId, userId);
+        } else {
+            fileGrantRepository.revoke(fileId, userId);
+        }
+    }
+
+    // Décisions groupées : même règle, une instruction par lot de demandes
+    @Transactional
+    public void applyStatus(Collection<Long> requestIds, AccessRequest.RequestStatus status) {
+        if (status == AccessRequest.RequestStatus.APPROVED) {
+            fileGrantRepository.grantForRequests(requestIds);
+        } else {
+            fileGrantRepository.revokeForRequests(requestIds);
+        }
+    }
+
+    @Transactional
+    public void revoke(Long fileId, Long userId) {
+        fileGrantRepository.revoke(fileId, userId);
+    }
+
+    @Transactional
+    public void revokeAll(Long fileId) {
+        fileGrantRepository.revokeAll(fileId);
+    }
+
+    // Rattrapage des demandes approuvées avant l'existence de la table : seulement tant que file_grants est
+    // vide, donc une fois à la mise en service ; les démarrages suivants ne parcourent plus access_requests.
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void synchronizeGrants() {
+        if (!syncOnStartup) {
+            if (!fileGrantRepository.existsByIdIsNotNull()) {
+                int added = fileGrantRepository.backfillFromApprovedRequests();
+                if (added > 0) {
+                    log.info("File grants initialized from {} approved requests", added);
+                }
+            }
+            return;
+        }
+        int added = fileGrantRepository.backfillFromApprovedRequests();
+        int removed = fileGrantRepository.deleteOrphans();
+        if (added > 0 || removed > 0) {
+            log.info("File grants synchronized: {} added, {} removed", added, removed);
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.ApplicationGoogleDrive.service;
+
+import com.ApplicationGoogleDrive.dto.FileSearchEntry;
+import com.ApplicationGoogleDrive.model.File;
+import com.ApplicationGoogleDrive.repository.FileRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+// Index inversé en mémoire sur le nom et la description des fichiers.
+// Chaque mot est découpé en n-grammes ancrés au début ("$r", "$re", "rep", "epo"...) :
+// un préfixe retrouve les mots qui le commencent, et un mot mal orthographié partage
+// encore la plupart de ses trigrammes avec le bon (tolérance aux fautes de frappe).
+@Slf4j
+@Component
+public class FileSearchIndex {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    // Document indexé : ce qu'il faut pour filtrer la visibilité sans relire la base
+    private record IndexedFile(Long ownerId, boolean isPublic, Set<String> nameGrams, Set<String> grams) {
+    }
+
+    public record SearchHit(Long fileId, double score) {
+    }
+
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+    private final Map<Long, IndexedFile> documents = new ConcurrentHashMap<>();
+
+    // Fichiers supprimés pendant la reconstruction : elle ne doit pas les réintroduire
+    private final Set<Long> removedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready = false;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Value("${files.search.rebuild-batch-size:5000}")
+    private int rebuildBatchSize;
+
+    // Part minimale des n-grammes d'un mot de la requête qu'un fichier doit contenir
+    @Value("${files.search.min-gram-match:0.6}")
+    private double minGramMatch;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    // Indexation après le commit : un fichier annulé par rollback n'apparaît jamais dans les résultats
+    public void indexAfterCommit(File file) {
+        FileSearchEntry entry = new FileSearchEntry(file.getId(), file.getFileName(), file.getDescription(),
+                file.getOwner().getId(), file.isPublic());
+        AfterCommit.run(() -> index(entry));
+    }
+
+    public void removeAfterCommit(Long fileId) {
+        AfterCommit.run(() -> remove(fileId));
+    }
+
+    public void index(FileSearchEntry entry) {
+        Set<String> nameGrams = gramsOf(entry.getFileName());
+        Set<String> grams = new LinkedHashSet<>(nameGrams);
+        grams.addAll(gramsOf(entry.getDescription()));
+
+        IndexedFile previous = documents.put(entry.getId(),
+                new IndexedFile(entry.getOwnerId(), entry.isPublic(), nameGrams, grams));
+        if (previous != null) {
+            for (String gram : previous.grams()) {
+                if (!grams.contains(gram)) {
+                    removePosting(gram, entry.getId());
+                }
+            }
+        }
+        for (String gram : grams) {
+            postings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(entry.getId());
+        }
+    }
+
+    // Changement de visibilité : les n-grammes ne changent pas, seul le filtrage est mis à jour
+    public void updateVisibility(Long fileId, boolean isPublic) {
+        documents.computeIfPresent(fileId, (id, indexed) ->
+                new IndexedFile(indexed.ownerId(), isPublic, indexed.nameGrams(), indexed.grams()));
+    }
+
+    public void remove(Long fileId) {
+        if (!ready) {
+            removedDuringRebuild.add(fileId);
+        }
+        IndexedFile previous = documents.remove(fileId);
+        if (previous != null) {
+            for (String gram : previous.grams()) {
+                removePosting(gram, fileId);
+            }
+        }
+    }
+
+    // Recherche : chaque mot de la requête doit correspondre ; grantLookup n'est consulté
+    // que pour les fichiers privés d'autres utilisateurs
+    public List<SearchHit> search(String query, Long userId,
+                                  Function<Collection<Long>, Set<Long>> grantLookup, int limit) {
+        List<Set<String>> queryTerms = new ArrayList<>();
+        for (String token : tokenize(query)) {
+            queryTerms.add(gramsOfToken(token));
+        }
+        if (queryTerms.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Double> scores = null;
+        for (Set<String> termGrams : queryTerms) {
+            Map<Long, Integer> matches = new HashMap<>();
+            for (String gram : termGrams) {
+                Set<Long> ids = postings.get(gram);
+                if (ids == null) {
+                    continue;
+                }
+                for (Long id : ids) {
+                    // Après le premier mot, seuls les candidats restants sont comptés
+                    if (scores == null || scores.containsKey(id)) {
+                        matches.merge(id, 1, Integer::sum);
+                    }
+                }
+            }
+
+            int required = Math.max(1, (int) Math.ceil(termGrams.size() * minGramMatch));
+            Map<Long, Double> termScores = new HashMap<>();
+            for (Map.Entry<Long, Integer> match : matches.entrySet()) {
+                if (match.getValue() >= required) {
+                    double score = (double) match.getValue() / termGrams.size();
+                    IndexedFile document = documents.get(match.getKey());
+                    if (document != null && document.nameGrams().containsAll(termGrams)) {
+                        // Correspondance exacte dans le nom : en tête des résultats
+                        score += 1.0;
+                    }
+                    double previous = scores == null ? 0 : scores.get(match.getKey());
+                    termScores.put(match.getKey(), previous + score);
+                }
+            }
+            scores = termScores;
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())));
+
+        List<SearchHit> candidates = new ArrayList<>(ranked.size());
+        for (Map.Entry<Long, Double> entry : ranked) {
+            candidates.add(new SearchHit(entry.getKey(), entry.getValue()));
+        }
+        return filterVisible(candidates, userId, grantLookup, limit);
+    }
+
+    // Garde, dans l'ordre, les fichiers visibles par l'utilisateur.
+    // Filtrage par lots : une requête d'accès accordés par lot, pas par fichier.
+    public List<SearchHit> filterVisible(List<SearchHit> ranked, Long userId,
+                                         Function<Collection<Long>, Set<Long>> grantLookup, int limit) {
+        List<SearchHit> hits = new ArrayList<>();
+        int batchSize = Math.max(limit * 2, 100);
+        for (int from = 0; from < ranked.size() && hits.size() < limit; from += batchSize) {
+            List<SearchHit> batch = ranked.subList(from, Math.min(from + batchSize, ranked.size()));
+
+            List<Long> needsGrant = new ArrayList<>();
+            for (SearchHit hit : batch) {
+                IndexedFile document = documents.get(hit.fileId());
+                if (document != null && !document.isPublic() && !document.ownerId().equals(userId)) {
+                    needsGrant.add(hit.fileId());
+                }
+            }
+            Set<Long> granted = userId == null || needsGrant.isEmpty() ? Set.of() : grantLookup.apply(needsGrant);
+
+            for (SearchHit hit : batch) {
+                IndexedFile document = documents.get(hit.fileId());
+                if (document == null) {
+                    continue;
+                }
+                boolean visible = document.isPublic() || document.ownerId().equals(userId)
+                        || granted.contains(hit.fileId());
+                if (visible && hits.size() < limit) {
+                    hits.add(hit);
+                }
+            }
+        }
+        return hits;
+    }
+
+    // Reconstruction en arrière-plan : l'application est prête sans attendre la fin,
+    // la recherche passe par la base tant que l'index n'est pas complet
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildInBackground() {
+        Thread rebuild = new Thread(this::rebuild, "file-search-rebuild");
+        rebuild.setDaemon(true);
+        rebuild.start();
+    }
+
+    void rebuild() {
+        long start = System.currentTimeMillis();
+        try {
+            Long afterId = 0L;
+            List<FileSearchEntry> batch;
+            do {
+                batch = fileRepository.findSearchEntriesAfter(afterId, PageRequest.of(0, rebuildBatchSize));
+                for (FileSearchEntry entry : batch) {
+                    if (!removedDuringRebuild.contains(entry.getId())) {
+                        index(entry);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    afterId = batch.get(batch.size() - 1).getId();
+                }
+            } while (batch.size() == rebuildBatchSize);
+
+            ready = true;
+            removedDuringRebuild.clear();
+            log.info("Search index built: {} files, {} grams in {} ms",
+                    documents.size(), postings.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.error("Search index rebuild failed, searches will keep using the database", e);
+        }
+    }
+
+    private void removePosting(String gram, Long fileId) {
+        postings.computeIfPresent(gram, (key, ids) -> {
+            ids.remove(fileId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(normalized.toLowerCase())) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static Set<String> gramsOf(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (String token : tokenize(text)) {
+            grams.addAll(gramsOfToken(token));
+        }
+        return grams;
+    }
+
+    // "$" marque le début du mot : "$r" et "$re" servent aux requêtes d'une ou deux lettres
+    private static Set<String> gramsOfToken(String token) {
+        Set<String> grams = new LinkedHashSet<>();
+        String anchored = "$" + token;
+        grams.add(anchored.substring(0, 2));
+        for (int i = 0; i + 3 <= anchored.length(); i++) {
+            grams.add(anchored.substring(i, i + 3));
+        }
+        return grams;
+    }
+}
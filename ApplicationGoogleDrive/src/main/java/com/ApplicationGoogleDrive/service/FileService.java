@@ -1,55 +1,173 @@
 package com.ApplicationGoogleDrive.service;
 
+import com.ApplicationGoogleDrive.dto.CursorPage;
+import com.ApplicationGoogleDrive.dto.ListingRequest;
+import com.ApplicationGoogleDrive.dto.PrivateFileStatus;
 import com.ApplicationGoogleDrive.model.*;
 import com.ApplicationGoogleDrive.repository.*;
+import com.ApplicationGoogleDrive.storage.StorageBackend;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+// Ordre des verrous pris par les transactions qui ajoutent ou suppriment des fichiers (upload, suppression
+// simple ou groupée, suppression de dossier), identique partout pour éviter les interblocages MySQL :
+// 1. compteurs d'utilisation du propriétaire (storage_usage),
+// 2. dossiers, par id croissant (FolderService.addToRollups, lockSubtree),
+// 3. contenus stockés, par empreinte croissante (stored_contents).
+@Slf4j
 @Service
 public class FileService {
 
+    // Champs triables des listes de fichiers paginées
+    private static final Set<String> FILE_SORT_FIELDS = Set.of("uploadedAt", "fileName", "fileSize");
+
     @Autowired
     private FileRepository fileRepository;
 
     @Autowired
     private AccessRequestRepository accessRequestRepository;
 
-    private final Path rootLocation = Paths.get("uploads");
+    @Autowired
+    private ContentStoreService contentStoreService;
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @Autowired
+    private AccessDecisionCache accessDecisionCache;
+
+    @Autowired
+    private FileGrantService fileGrantService;
+
+    @Autowired
+    private FileSearchIndex fileSearchIndex;
+
+    @Autowired
+    private FileGrantRepository fileGrantRepository;
+
+    @Autowired
+    private ContentIndexingService contentIndexingService;
+
+    @Autowired
+    private ContentSearchIndex contentSearchIndex;
+
+    @Autowired
+    private FileContentRepository fileContentRepository;
+
+    @Autowired
+    private RenditionService renditionService;
+
+    @Autowired
+    private ListingVersion listingVersion;
+
+    @Autowired
+    private FolderService folderService;
+
+    @Autowired
+    private StorageUsageService storageUsageService;
 
     @Transactional
-    public File saveFile(MultipartFile file, String description, boolean isPublic, User owner) throws IOException {
-        String originalFilename = file.getOriginalFilename();
-        String fileExtension = "";
-        if (originalFilename != null && originalFilename.contains(".")) {
-            fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
+    public File saveFile(MultipartFile file, String description, boolean isPublic, User owner,
+                         Long folderId) throws IOException {
+        // Quota vérifié avant d'écrire quoi que ce soit
+        storageUsageService.checkQuota(owner, file.getSize());
+        // Empreinte calculée pendant l'écriture : les octets ne sont lus qu'une fois
+        ContentStoreService.StagedContent staged;
+        try (InputStream in = file.getInputStream()) {
+            staged = contentStoreService.stage(in, file.getContentType());
         }
-        String uniqueFilename = UUID.randomUUID().toString() + fileExtension;
+        return saveStagedFile(staged, file.getOriginalFilename(), file.getContentType(), description, isPublic,
+                owner, folderId);
+    }
 
-        if (!Files.exists(rootLocation)) {
-            Files.createDirectories(rootLocation);
+    // Enregistre un contenu déjà écrit dans la zone temporaire (upload simple ou morceaux recompressés)
+    @Transactional
+    public File saveStagedFile(ContentStoreService.StagedContent staged, String originalFilename, String contentType,
+                               String description, boolean isPublic, User owner, Long folderId) throws IOException {
+        ContentStoreService.StoredObject stored;
+        try {
+            folderService.requireOwnedFolder(folderId, owner);
+            // Réservation sous quota avant de déplacer les octets dans le stockage (annulée avec la transaction).
+            // Verrous dans l'ordre commun : compteurs, dossiers, contenu.
+            storageUsageService.recordFileAdded(owner.getId(), contentType, staged.size());
+            folderService.addToRollups(folderId, 1, staged.size());
+            stored = contentStoreService.commit(staged);
+        } catch (IOException | RuntimeException e) {
+            // Dossier refusé, quota dépassé... : le fichier temporaire ne doit pas rester sur le volume
+            Files.deleteIfExists(staged.path());
+            throw e;
+        }
+
+        return persist(buildFileEntity(originalFilename, contentType, stored,
+                staged.size(), staged.hash(), description, isPublic, owner, folderId));
+    }
+
+    // Upload instantané, limité aux contenus que l'utilisateur possède déjà dans un de ses fichiers : connaître
+    // l'empreinte d'un fichier privé d'un autre utilisateur ne donne pas accès à son contenu (ni ne révèle
+    // qu'il existe). Vide sinon, le client envoie alors les octets par un upload classique.
+    @Transactional
+    public Optional<File> saveFileFromExistingContent(String hash, long size, String originalFilename, String contentType,
+                                                      String description, boolean isPublic, User owner,
+                                                      Long folderId) {
+        folderService.requireOwnedFolder(folderId, owner);
+        storageUsageService.checkQuota(owner, size);
+        // Lecture sans verrou : rien n'est réservé pour un contenu absent
+        if (!fileRepository.existsByOwnerIdAndContentHashAndFileSize(owner.getId(), hash.toLowerCase(), size)) {
+            return Optional.empty();
         }
 
-        Files.copy(file.getInputStream(), rootLocation.resolve(uniqueFilename));
+        // Verrous dans l'ordre commun : compteurs, dossiers, contenu
+        storageUsageService.recordFileAdded(owner.getId(), contentType, size);
+        folderService.addToRollups(folderId, 1, size);
+        ContentStoreService.StoredObject stored = contentStoreService.addReference(hash, size)
+                // Dernière référence supprimée entre-temps : la réservation est annulée avec la transaction
+                .orElseThrow(() -> new RuntimeException("Content is no longer stored, upload the file bytes"));
+        return Optional.of(persist(buildFileEntity(originalFilename, contentType, stored,
+                size, hash.toLowerCase(), description, isPublic, owner, folderId)));
+    }
+
+    // Cumuls des dossiers et compteurs déjà mis à jour par l'appelant
+    private File persist(File fileEntity) {
+        File saved = fileRepository.save(fileEntity);
+        fileSearchIndex.indexAfterCommit(saved);
+        contentIndexingService.enqueueAfterCommit(saved.getId());
+        renditionService.generateAfterCommit(saved);
+        listingVersion.bumpAfterCommit();
+        return saved;
+    }
 
+    private File buildFileEntity(String originalFilename, String contentType, ContentStoreService.StoredObject stored,
+                                 long size, String hash, String description, boolean isPublic, User owner,
+                                 Long folderId) {
         File fileEntity = new File();
         fileEntity.setFileName(originalFilename);
-        fileEntity.setFileType(file.getContentType());
-        fileEntity.setFilePath(uniqueFilename);
-        fileEntity.setFileSize(file.getSize());
+        fileEntity.setFileType(contentType);
+        fileEntity.setFilePath(stored.storageKey());
+        fileEntity.setStorageEncoding(stored.encoding());
+        fileEntity.setFileSize(size);
+        fileEntity.setContentHash(hash);
         fileEntity.setDescription(description);
         fileEntity.setPublic(isPublic);
         fileEntity.setOwner(owner);
-
-        return fileRepository.save(fileEntity);
+        fileEntity.setFolderId(folderId);
+        return fileEntity;
     }
 
     public List<File> getFilesByOwner(User owner) {
@@ -72,6 +190,86 @@ public class FileService {
         return fileRepository.findVisibleFiles(user.getId());
     }
 
+    // Versions paginées par curseur des listes ci-dessus
+    public CursorPage<File> getFilesByOwner(User owner, ListingRequest request) {
+        return findFilesPage(FileSpecifications.ownedBy(owner.getId()), request);
+    }
+
+    public CursorPage<File> getPublicFiles(ListingRequest request) {
+        return findFilesPage(FileSpecifications.isPublic(), request);
+    }
+
+    public CursorPage<File> getVisibleFiles(User user, ListingRequest request) {
+        if (user == null) {
+            return getPublicFiles(request);
+        }
+        return findFilesPage(FileSpecifications.visibleTo(user.getId()), request);
+    }
+
+    // Fichiers d'un dossier (null : racine), ou de tout son sous-arbre si recursive
+    public CursorPage<File> getFilesInFolder(User owner, Long folderId, boolean recursive, ListingRequest request) {
+        Folder folder = folderService.requireOwnedFolder(folderId, owner);
+        Specification<File> specification = FileSpecifications.ownedBy(owner.getId());
+        if (recursive && folder != null) {
+            specification = specification.and(FileSpecifications.inSubtree(folder.getPath()));
+        } else if (!recursive) {
+            specification = specification.and(FileSpecifications.inFolder(folderId));
+        }
+        return findFilesPage(specification, request);
+    }
+
+    private CursorPage<File> findFilesPage(Specification<File> specification, ListingRequest request) {
+        Sort sort = KeysetCursors.sort(request, FILE_SORT_FIELDS, "uploadedAt");
+        ScrollPosition position = KeysetCursors.decode(request.getCursor(), sort);
+        return KeysetCursors.toPage(fileRepository.findBy(
+                specification.and(FileSpecifications.matching(request)),
+                query -> query.sortBy(sort).limit(request.pageSize()).scroll(position)));
+    }
+
+    // Recherche par nom et description parmi les fichiers visibles, du plus pertinent au moins pertinent,
+    // puis (si demandé) par contenu. Tant que l'index des noms se construit au démarrage,
+    // la recherche passe par la base (LIKE sur le nom).
+    public List<File> searchFiles(String query, User user, int limit, boolean includeContent) {
+        if (!fileSearchIndex.isReady()) {
+            ListingRequest request = new ListingRequest();
+            request.setQ(query);
+            request.setLimit(limit);
+            return getVisibleFiles(user, request).getItems();
+        }
+
+        Long userId = user != null ? user.getId() : null;
+        Function<Collection<Long>, Set<Long>> grantLookup =
+                fileIds -> new HashSet<>(fileGrantRepository.findGrantedFileIds(userId, fileIds));
+        List<FileSearchIndex.SearchHit> hits = new ArrayList<>(
+                fileSearchIndex.search(query, userId, grantLookup, limit));
+
+        // Correspondances dans le contenu, après celles du nom et sans doublon
+        if (includeContent && hits.size() < limit && contentIndexingService.isReady()) {
+            Set<Long> found = new HashSet<>();
+            hits.forEach(hit -> found.add(hit.fileId()));
+            List<FileSearchIndex.SearchHit> contentHits = new ArrayList<>();
+            for (Long fileId : contentSearchIndex.search(query, limit * 20)) {
+                if (!found.contains(fileId)) {
+                    contentHits.add(new FileSearchIndex.SearchHit(fileId, 0));
+                }
+            }
+            hits.addAll(fileSearchIndex.filterVisible(contentHits, userId, grantLookup, limit - hits.size()));
+        }
+
+        Map<Long, File> filesById = new HashMap<>();
+        for (File file : fileRepository.findAllById(hits.stream().map(FileSearchIndex.SearchHit::fileId).toList())) {
+            filesById.put(file.getId(), file);
+        }
+        List<File> results = new ArrayList<>(hits.size());
+        for (FileSearchIndex.SearchHit hit : hits) {
+            File file = filesById.get(hit.fileId());
+            if (file != null) {
+                results.add(file);
+            }
+        }
+        return results;
+    }
+
     public File getFileWithAccessCheck(Long fileId, User user) {
         File file = fileRepository.findById(fileId)
                 .orElseThrow(() -> new RuntimeException("File not found with id: " + fileId));
@@ -101,6 +299,10 @@ public class FileService {
     }
 
     public boolean checkUserAccessToFile(Long fileId, Long userId) {
+        return accessDecisionCache.get(fileId, userId, () -> computeUserAccessToFile(fileId, userId));
+    }
+
+    private boolean computeUserAccessToFile(Long fileId, Long userId) {
         File file = fileRepository.findById(fileId)
                 .orElseThrow(() -> new RuntimeException("File not found"));
 
@@ -108,20 +310,23 @@ public class FileService {
             return true;
         }
 
-        return accessRequestRepository.findByFileIdAndRequesterId(fileId, userId)
-                .map(request -> request.getStatus() == AccessRequest.RequestStatus.APPROVED)
-                .orElse(false);
+        return fileGrantService.hasGrant(fileId, userId);
     }
 
-    public byte[] getFileContent(Long fileId, User user) throws IOException {
-        File file = getFileWithAccessCheck(fileId, user);
-        Path filePath = rootLocation.resolve(file.getFilePath());
+    // Chemin du contenu sur disque : le contrôleur le diffuse en flux, sans le charger en mémoire
+    public Path getStoredFilePath(File file) {
+        Path filePath = storageBackend.resolve(file.getFilePath());
 
         if (!Files.exists(filePath)) {
             throw new RuntimeException("File not found on disk");
         }
 
-        return Files.readAllBytes(filePath);
+        return filePath;
+    }
+
+    // Contenu d'origine du fichier, décompressé à la volée s'il est stocké compressé
+    public InputStream openContent(File file) throws IOException {
+        return ContentStoreService.decode(Files.newInputStream(getStoredFilePath(file)), file.getStorageEncoding());
     }
 
     @Transactional
@@ -133,13 +338,32 @@ public class FileService {
             throw new RuntimeException("You are not the owner of this file");
         }
 
+        accessRequestRepository.deleteByFileIds(List.of(fileId));
+        fileGrantService.revokeAll(fileId);
+        fileContentRepository.deleteByFileId(fileId);
+        fileRepository.delete(file);
+        // Verrous dans l'ordre commun : compteurs, dossiers, puis contenu (release ci-dessous)
+        storageUsageService.recordFileRemoved(user.getId(), file.getFileType(), sizeOf(file));
+        folderService.addToRollups(file.getFolderId(), -1, -sizeOf(file));
+        accessDecisionCache.invalidateFile(fileId);
+        fileSearchIndex.removeAfterCommit(fileId);
+        contentIndexingService.removeAfterCommit(fileId);
+        listingVersion.bumpAfterCommit();
+
+        // Contenu partagé : les octets ne disparaissent qu'avec la dernière référence, et seulement après
+        // le commit (une suppression annulée ne doit pas effacer de contenu)
+        Optional<ContentStoreService.OrphanedContent> orphaned = file.getContentHash() != null
+                ? contentStoreService.release(file.getContentHash())
+                : Optional.of(new ContentStoreService.OrphanedContent(null, file.getFilePath()));
+        orphaned.ifPresent(content -> AfterCommit.run(() -> deleteStoredBytes(content)));
+    }
+
+    private void deleteStoredBytes(ContentStoreService.OrphanedContent content) {
         try {
-            List<AccessRequest> requests = accessRequestRepository.findByFile(file);
-            accessRequestRepository.deleteAll(requests);
-            Files.deleteIfExists(rootLocation.resolve(file.getFilePath()));
-            fileRepository.delete(file);
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to delete file: " + e.getMessage());
+            contentStoreService.deleteOrphaned(content);
+        } catch (IOException | RuntimeException e) {
+            // Octets orphelins sans ligne en base : sans danger, seulement de l'espace perdu
+            log.warn("Could not delete stored content {}: {}", content.storageKey(), e.getMessage());
         }
     }
 
@@ -184,60 +408,106 @@ public class FileService {
     }
 
     // NOUVELLE MÉTHODE: Obtenir les fichiers privés d'autres utilisateurs avec statut
+    // Une seule requête (jointure propriétaire + demande), quel que soit le nombre de fichiers
     public List<Map<String, Object>> getAllOthersPrivateFilesWithStatus(User currentUser) {
-        List<File> allOthersPrivateFiles = fileRepository.findAllOthersPrivateFiles(currentUser.getId());
-        List<Map<String, Object>> filesWithStatus = new ArrayList<>();
-
-        for (File file : allOthersPrivateFiles) {
-            Map<String, Object> fileInfo = new HashMap<>();
-            fileInfo.put("id", file.getId());
-            fileInfo.put("fileName", file.getFileName());
-            fileInfo.put("description", file.getDescription());
-            fileInfo.put("fileSize", file.getFileSize());
-            fileInfo.put("fileType", file.getFileType());
-            fileInfo.put("uploadedAt", file.getUploadedAt());
-            fileInfo.put("ownerEmail", file.getOwner().getEmail());
-            fileInfo.put("ownerName", file.getOwner().getFirstName() + " " + file.getOwner().getLastName());
-            fileInfo.put("isPublic", false);
-            fileInfo.put("isOwner", false);
-
-            // Vérifier le statut de la demande
-            Optional<AccessRequest> existingRequest = accessRequestRepository
-                    .findByFileIdAndRequesterId(file.getId(), currentUser.getId());
-
-            if (existingRequest.isPresent()) {
-                AccessRequest request = existingRequest.get();
-                fileInfo.put("hasRequested", true);
-                fileInfo.put("requestStatus", request.getStatus().toString());
-                fileInfo.put("requestId", request.getId());
-                fileInfo.put("requestMessage", request.getMessage());
-                fileInfo.put("requestedAt", request.getRequestedAt());
-
-                if (request.getStatus() == AccessRequest.RequestStatus.APPROVED) {
-                    fileInfo.put("hasAccess", true);
-                    fileInfo.put("canDownload", true);
-                    fileInfo.put("canRequest", false);
-                } else if (request.getStatus() == AccessRequest.RequestStatus.PENDING) {
-                    fileInfo.put("hasAccess", false);
-                    fileInfo.put("canDownload", false);
-                    fileInfo.put("canRequest", false);
-                } else {
-                    fileInfo.put("hasAccess", false);
-                    fileInfo.put("canDownload", false);
-                    fileInfo.put("canRequest", true);
-                }
+        List<PrivateFileStatus> rows = fileRepository.findOthersPrivateFilesWithStatus(currentUser.getId());
+        List<Map<String, Object>> filesWithStatus = new ArrayList<>(rows.size());
+        for (PrivateFileStatus row : rows) {
+            filesWithStatus.add(toStatusMap(row));
+        }
+        return filesWithStatus;
+    }
+
+    // Même liste par page, triée du plus récent au plus ancien (uploadedAt, id)
+    public CursorPage<Map<String, Object>> getAllOthersPrivateFilesWithStatus(User currentUser, ListingRequest request) {
+        Sort sort = KeysetCursors.sort(request, Set.of("uploadedAt"), "uploadedAt");
+        if (request.isAscending()) {
+            throw new IllegalArgumentException("This listing only supports descending order");
+        }
+
+        LocalDateTime cursorAt = null;
+        Long cursorId = null;
+        ScrollPosition position = KeysetCursors.decode(request.getCursor(), sort);
+        if (position instanceof KeysetScrollPosition keyset && !keyset.isInitial()) {
+            cursorAt = (LocalDateTime) keyset.getKeys().get("uploadedAt");
+            cursorId = (Long) keyset.getKeys().get("id");
+        }
+
+        // Une ligne de plus que la page pour savoir s'il en reste
+        int pageSize = request.pageSize();
+        List<PrivateFileStatus> rows = fileRepository.findOthersPrivateFilesWithStatusAfter(currentUser.getId(),
+                cursorAt, cursorId, blankToNull(request.getQ()), blankToNull(request.getType()),
+                PageRequest.of(0, pageSize + 1));
+
+        boolean hasMore = rows.size() > pageSize;
+        List<PrivateFileStatus> pageRows = hasMore ? rows.subList(0, pageSize) : rows;
+        List<Map<String, Object>> items = new ArrayList<>(pageRows.size());
+        for (PrivateFileStatus row : pageRows) {
+            items.add(toStatusMap(row));
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            PrivateFileStatus last = pageRows.get(pageRows.size() - 1);
+            Map<String, Object> keys = new LinkedHashMap<>();
+            keys.put("uploadedAt", last.getUploadedAt());
+            keys.put("id", last.getId());
+            nextCursor = KeysetCursors.encode(ScrollPosition.forward(keys));
+        }
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+
+    private long sizeOf(File file) {
+        return file.getFileSize() != null ? file.getFileSize() : 0L;
+    }
+
+    private String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    private Map<String, Object> toStatusMap(PrivateFileStatus row) {
+        Map<String, Object> fileInfo = new HashMap<>();
+        fileInfo.put("id", row.getId());
+        fileInfo.put("fileName", row.getFileName());
+        fileInfo.put("description", row.getDescription());
+        fileInfo.put("fileSize", row.getFileSize());
+        fileInfo.put("fileType", row.getFileType());
+        fileInfo.put("uploadedAt", row.getUploadedAt());
+        fileInfo.put("ownerEmail", row.getOwnerEmail());
+        fileInfo.put("ownerName", row.getOwnerFirstName() + " " + row.getOwnerLastName());
+        fileInfo.put("isPublic", false);
+        fileInfo.put("isOwner", false);
+
+        // Statut de la demande, issu de la jointure
+        if (row.getRequestId() != null) {
+            fileInfo.put("hasRequested", true);
+            fileInfo.put("requestStatus", row.getRequestStatus().toString());
+            fileInfo.put("requestId", row.getRequestId());
+            fileInfo.put("requestMessage", row.getRequestMessage());
+            fileInfo.put("requestedAt", row.getRequestedAt());
+
+            if (row.getRequestStatus() == AccessRequest.RequestStatus.APPROVED) {
+                fileInfo.put("hasAccess", true);
+                fileInfo.put("canDownload", true);
+                fileInfo.put("canRequest", false);
+            } else if (row.getRequestStatus() == AccessRequest.RequestStatus.PENDING) {
+                fileInfo.put("hasAccess", false);
+                fileInfo.put("canDownload", false);
+                fileInfo.put("canRequest", false);
             } else {
-                fileInfo.put("hasRequested", false);
                 fileInfo.put("hasAccess", false);
                 fileInfo.put("canDownload", false);
                 fileInfo.put("canRequest", true);
-                fileInfo.put("requestStatus", "NO_REQUEST");
             }
-
-            filesWithStatus.add(fileInfo);
+        } else {
+            fileInfo.put("hasRequested", false);
+            fileInfo.put("hasAccess", false);
+            fileInfo.put("canDownload", false);
+            fileInfo.put("canRequest", true);
+            fileInfo.put("requestStatus", "NO_REQUEST");
         }
 
-        return filesWithStatus;
+        return fileInfo;
     }
 
     // Méthode pour voir les fichiers disponibles pour demande d'accès
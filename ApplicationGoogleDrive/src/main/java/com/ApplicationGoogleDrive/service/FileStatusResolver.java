@@ -0,0 +1,143 @@
+package com.ApplicationGoogleDrive.service;
+
+import com.ApplicationGoogleDrive.dto.FileStatusRow;
+import com.ApplicationGoogleDrive.model.AccessRequest;
+import com.ApplicationGoogleDrive.model.User;
+import com.ApplicationGoogleDrive.repository.FileGrantRepository;
+import com.ApplicationGoogleDrive.repository.FileRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+// Propriété, visibilité, demande et actions permises de plusieurs fichiers pour un utilisateur.
+// Deux requêtes par lot quel que soit le nombre de fichiers : fichiers + propriétaire + demande
+// (jointure), puis accès accordés. Remplace les appels check-access, can-request et has-requested
+// faits pour chaque fichier affiché.
+@Service
+public class FileStatusResolver {
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private FileGrantRepository fileGrantRepository;
+
+    // Statut d'un fichier pour l'utilisateur (null : anonyme)
+    public record FileStatus(FileStatusRow file, boolean owner, boolean granted, boolean authenticated) {
+
+        public boolean hasAccess() {
+            return file.isPublic() || owner || granted;
+        }
+
+        public boolean hasRequest() {
+            return file.getRequestId() != null;
+        }
+
+        public boolean isPending() {
+            return file.getRequestStatus() == AccessRequest.RequestStatus.PENDING;
+        }
+
+        // Même règle que FileService.canUserRequestAccess : aucune demande, ou demande rejetée
+        public boolean canRequest() {
+            return authenticated && !owner && !file.isPublic()
+                    && (!hasRequest() || file.getRequestStatus() == AccessRequest.RequestStatus.REJECTED);
+        }
+
+        public List<String> actions() {
+            List<String> actions = new ArrayList<>();
+            if (hasAccess()) {
+                actions.add("view");
+                actions.add("download");
+            }
+            if (owner) {
+                actions.add("delete");
+                actions.add("change-visibility");
+                actions.add("move");
+            }
+            if (canRequest()) {
+                actions.add("request-access");
+            }
+            if (hasRequest() && isPending()) {
+                actions.add("cancel-request");
+            }
+            return actions;
+        }
+
+        public String ownerName() {
+            return file.getOwnerFirstName() + " " + file.getOwnerLastName();
+        }
+    }
+
+    public Optional<FileStatus> resolve(Long fileId, User user) {
+        return Optional.ofNullable(resolve(List.of(fileId), user).get(fileId));
+    }
+
+    // Statuts dans l'ordre des ids demandés ; les fichiers inexistants sont absents
+    public Map<Long, FileStatus> resolve(Collection<Long> fileIds, User user) {
+        Long userId = user != null ? user.getId() : null;
+        Map<Long, FileStatusRow> rows = new HashMap<>();
+        Set<Long> granted = new HashSet<>();
+        for (List<Long> batch : BulkResults.batches(new ArrayList<>(new LinkedHashSet<>(fileIds)))) {
+            List<Long> othersPrivate = new ArrayList<>();
+            for (FileStatusRow row : fileRepository.findStatusRows(batch, userId)) {
+                rows.put(row.getId(), row);
+                if (userId != null && !row.isPublic() && !row.getOwnerId().equals(userId)) {
+                    othersPrivate.add(row.getId());
+                }
+            }
+            // Les accès accordés ne concernent que les fichiers privés des autres utilisateurs
+            if (!othersPrivate.isEmpty()) {
+                granted.addAll(fileGrantRepository.findGrantedFileIds(userId, othersPrivate));
+            }
+        }
+
+        Map<Long, FileStatus> statuses = new LinkedHashMap<>();
+        for (Long fileId : fileIds) {
+            FileStatusRow row = rows.get(fileId);
+            if (row != null) {
+                statuses.put(fileId, new FileStatus(row, userId != null && row.getOwnerId().equals(userId),
+                        granted.contains(fileId), userId != null));
+            }
+        }
+        return statuses;
+    }
+
+    // Représentation complète, utilisée par l'endpoint groupé
+    public Map<String, Object> toMap(FileStatus status) {
+        FileStatusRow file = status.file();
+        Map<String, Object> info = new HashMap<>();
+        info.put("id", file.getId());
+        info.put("fileName", file.getFileName());
+        info.put("description", file.getDescription());
+        info.put("fileSize", file.getFileSize());
+        info.put("fileType", file.getFileType());
+        info.put("uploadedAt", file.getUploadedAt());
+        info.put("isPublic", file.isPublic());
+        info.put("ownerEmail", file.getOwnerEmail());
+        info.put("ownerName", status.ownerName());
+        info.put("isOwner", status.owner());
+        info.put("hasAccess", status.hasAccess());
+        info.put("canDownload", status.hasAccess());
+        info.put("canRequest", status.canRequest());
+        info.put("hasRequested", status.hasRequest());
+        info.put("requestStatus", status.hasRequest() ? file.getRequestStatus().toString() : "NO_REQUEST");
+        if (status.hasRequest()) {
+            info.put("requestId", file.getRequestId());
+            info.put("requestMessage", file.getRequestMessage());
+            info.put("requestedAt", file.getRequestedAt());
+            info.put("respondedAt", file.getRespondedAt());
+        }
+        info.put("actions", status.actions());
+        return info;
+    }
+}
@@ -0,0 +1,313 @@
+package com.ApplicationGoogleDrive.service;
+
+import com.ApplicationGoogleDrive.model.Folder;
+import com.ApplicationGoogleDrive.model.User;
+import com.ApplicationGoogleDrive.repository.FolderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+// Arborescence des dossiers : chemin matérialisé pour les sous-arbres, cumuls (nombre de fichiers,
+// taille) maintenus sur chaque ancêtre à l'enregistrement, la suppression et le déplacement des fichiers.
+// Avant toute écriture, les dossiers concernés sont verrouillés dans l'ordre de leurs ids : le dossier et
+// ses ancêtres pour les cumuls, en plus tout le sous-arbre pour un déplacement ou une suppression. Un
+// déplacement concurrent attend donc la fin de la mise à jour des cumuls (et inversement), et deux
+// transactions ne peuvent pas s'interbloquer en verrouillant les mêmes dossiers dans un ordre différent.
+@Slf4j
+@Service
+public class FolderService {
+
+    // Profondeur maximale (la colonne path doit pouvoir contenir tous les ids)
+    private static final int MAX_DEPTH = 32;
+
+    @Autowired
+    private FolderRepository folderRepository;
+
+    @Autowired
+    private ListingVersion listingVersion;
+
+    @Transactional
+    public Folder createFolder(String name, Long parentId, User owner) {
+        String folderName = validateName(name);
+        Folder parent = parentId != null ? lockFolder(parentId, owner) : null;
+        if (parent != null && parent.getDepth() + 1 >= MAX_DEPTH) {
+            throw new RuntimeException("Folders cannot be nested more than " + MAX_DEPTH + " levels deep");
+        }
+        checkNameAvailable(owner.getId(), parentId, folderName);
+
+        Folder folder = new Folder();
+        folder.setName(folderName);
+        folder.setOwnerId(owner.getId());
+        folder.setParentId(parentId);
+        folder.setDepth(parent != null ? parent.getDepth() + 1 : 0);
+        // Le chemin contient l'id, connu seulement après l'insertion
+        folder.setPath("/");
+        Folder saved = withUniqueName(folderName, () -> folderRepository.save(folder));
+        saved.setPath(childPath(parent, saved.getId()));
+
+        listingVersion.bumpAfterCommit();
+        log.info("Folder {} created by {} at {}", saved.getId(), owner.getEmail(), saved.getPath());
+        return saved;
+    }
+
+    public Folder getFolder(Long folderId, User owner) {
+        Folder folder = folderRepository.findById(folderId)
+                .orElseThrow(() -> new RuntimeException("Folder not found with id: " + folderId));
+        if (!folder.getOwnerId().equals(owner.getId())) {
+            throw new RuntimeException("You are not the owner of this folder");
+        }
+        return folder;
+    }
+
+    // Dossier et fil d'Ariane (ancêtres depuis la racine), lus en une requête grâce au chemin
+    public Map<String, Object> getFolderDetails(Long folderId, User owner) {
+        Folder folder = getFolder(folderId, owner);
+        List<Long> ancestorIds = ancestorIds(folder.getPath());
+        ancestorIds.remove(folder.getId());
+
+        Map<Long, Folder> ancestorsById = new HashMap<>();
+        folderRepository.findAllById(ancestorIds).forEach(ancestor -> ancestorsById.put(ancestor.getId(), ancestor));
+        List<Folder> ancestors = new ArrayList<>();
+        for (Long id : ancestorIds) {
+            if (ancestorsById.containsKey(id)) {
+                ancestors.add(ancestorsById.get(id));
+            }
+        }
+
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("folder", folder);
+        details.put("ancestors", ancestors);
+        return details;
+    }
+
+    public List<Folder> getChildFolders(Long parentId, User owner) {
+        if (parentId == null) {
+            return folderRepository.findByOwnerIdAndParentIdIsNullOrderByNameAsc(owner.getId());
+        }
+        getFolder(parentId, owner);
+        return folderRepository.findByOwnerIdAndParentIdOrderByNameAsc(owner.getId(), parentId);
+    }
+
+    @Transactional
+    public Folder renameFolder(Long folderId, String name, User owner) {
+        Folder folder = lockFolder(folderId, owner);
+        String folderName = validateName(name);
+        if (!folderName.equals(folder.getName())) {
+            checkNameAvailable(owner.getId(), folder.getParentId(), folderName);
+            folder.setName(folderName);
+            withUniqueName(folderName, () -> {
+                folderRepository.flush();
+                return folder;
+            });
+            listingVersion.bumpAfterCommit();
+        }
+        return folder;
+    }
+
+    // Déplacement d'un sous-arbre : une instruction pour les chemins des dossiers, deux pour les cumuls
+    // des anciens et nouveaux ancêtres ; aucune ligne de la table files n'est modifiée.
+    @Transactional
+    public Folder moveFolder(Long folderId, Long newParentId, User owner) {
+        Folder folder = lockSubtree(folderId, newParentId, owner);
+        if (newParentId != null && newParentId.equals(folder.getParentId())
+                || newParentId == null && folder.getParentId() == null) {
+            return folder;
+        }
+
+        Folder newParent = newParentId != null ? lockFolder(newParentId, owner) : null;
+        if (newParent != null && newParent.getPath().startsWith(folder.getPath())) {
+            throw new RuntimeException("A folder cannot be moved into itself or one of its subfolders");
+        }
+        checkNameAvailable(owner.getId(), newParentId, folder.getName());
+
+        String oldPath = folder.getPath();
+        String newPath = childPath(newParent, folder.getId());
+        int depthDelta = (newParent != null ? newParent.getDepth() + 1 : 0) - folder.getDepth();
+        Integer subtreeMaxDepth = folderRepository.findSubtreeMaxDepth(oldPath);
+        if (subtreeMaxDepth != null && subtreeMaxDepth + depthDelta >= MAX_DEPTH) {
+            throw new RuntimeException("Folders cannot be nested more than " + MAX_DEPTH + " levels deep");
+        }
+
+        List<Long> oldAncestors = ancestorIds(oldPath);
+        oldAncestors.remove(folder.getId());
+        List<Long> newAncestors = newParent != null ? ancestorIds(newParent.getPath()) : List.of();
+        long files = folder.getFileCount();
+        long bytes = folder.getTotalSize();
+
+        folderRepository.moveSubtree(oldPath, oldPath.length(), newPath, depthDelta);
+        withUniqueName(folder.getName(), () -> folderRepository.updateParent(folder.getId(), newParentId));
+        if (!oldAncestors.isEmpty()) {
+            folderRepository.addToRollups(oldAncestors, -files, -bytes);
+        }
+        if (!newAncestors.isEmpty()) {
+            folderRepository.addToRollups(newAncestors, files, bytes);
+        }
+
+        listingVersion.bumpAfterCommit();
+        log.info("Folder {} moved from {} to {}", folder.getId(), oldPath, newPath);
+        return folderRepository.findById(folder.getId()).orElseThrow();
+    }
+
+    // Supprime le dossier et ses descendants (leurs fichiers doivent déjà être supprimés)
+    @Transactional
+    public int deleteSubtree(Folder folder) {
+        int deleted = folderRepository.deleteSubtree(folder.getPath());
+        listingVersion.bumpAfterCommit();
+        log.info("Folder {} deleted with {} subfolders", folder.getId(), deleted - 1);
+        return deleted;
+    }
+
+    // Dossier de destination d'un fichier : null pour la racine
+    public Folder requireOwnedFolder(Long folderId, User owner) {
+        return folderId != null ? getFolder(folderId, owner) : null;
+    }
+
+    // Ajoute (ou retire, valeurs négatives) des fichiers aux cumuls du dossier et de tous ses ancêtres
+    @Transactional
+    public void addToRollups(Long folderId, long files, long bytes) {
+        if (folderId != null) {
+            addToRollups(Map.of(folderId, new long[]{files, bytes}));
+        }
+    }
+
+    // Opérations groupées : deltas par dossier ({fichiers, octets}). Les dossiers et tous leurs ancêtres
+    // sont verrouillés ensemble, dans l'ordre des ids, avant la première mise à jour ; les dossiers
+    // supprimés entre-temps sont ignorés.
+    @Transactional
+    public void addToRollups(Map<Long, long[]> deltasByFolder) {
+        Map<Long, long[]> deltas = new TreeMap<>();
+        deltasByFolder.forEach((folderId, delta) -> {
+            if (folderId != null && (delta[0] != 0 || delta[1] != 0)) {
+                deltas.put(folderId, delta);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        // Chemins lus sans verrou, puis confirmés par la lecture verrouillante : un dossier déplacé entre
+        // les deux a changé d'ancêtres, qui sont alors verrouillés à leur tour
+        Map<Long, String> paths = toMap(folderRepository.findPaths(deltas.keySet()));
+        while (true) {
+            Set<Long> ids = new TreeSet<>(deltas.keySet());
+            paths.values().forEach(path -> ids.addAll(ancestorIds(path)));
+            Map<Long, String> locked = toMap(folderRepository.lockPaths(ids));
+            locked.keySet().retainAll(deltas.keySet());
+            if (locked.equals(paths)) {
+                break;
+            }
+            paths = locked;
+        }
+
+        for (Map.Entry<Long, String> folder : paths.entrySet()) {
+            long[] delta = deltas.get(folder.getKey());
+            folderRepository.addToRollups(ancestorIds(folder.getValue()), delta[0], delta[1]);
+        }
+    }
+
+    // Ids du chemin, de la racine jusqu'au dossier lui-même
+    static List<Long> ancestorIds(String path) {
+        List<Long> ids = new ArrayList<>();
+        for (String part : path.split("/")) {
+            if (!part.isEmpty()) {
+                ids.add(Long.valueOf(part));
+            }
+        }
+        return ids;
+    }
+
+    static String childPath(Folder parent, Long id) {
+        return (parent != null ? parent.getPath() : "/") + id + "/";
+    }
+
+    private static Map<Long, String> toMap(List<FolderRepository.FolderPath> folders) {
+        Map<Long, String> paths = new HashMap<>();
+        folders.forEach(folder -> paths.put(folder.getId(), folder.getPath()));
+        return paths;
+    }
+
+    // Verrouille, dans l'ordre des ids, le dossier, tout son sous-arbre, ses ancêtres et ceux de
+    // otherFolderId (nouveau parent d'un déplacement, peut être null) jusqu'au commit : aucun cumul du
+    // sous-arbre ne peut être modifié, ni aucun dossier y être créé, avant la fin de la transaction.
+    // Doit précéder tout autre accès aux dossiers dans la transaction (les entités sont chargées ensuite).
+    public Folder lockSubtree(Long folderId, Long otherFolderId, User owner) {
+        Set<Long> requested = otherFolderId != null && !otherFolderId.equals(folderId)
+                ? Set.of(folderId, otherFolderId) : Set.of(folderId);
+        Map<Long, String> paths = toMap(folderRepository.findPaths(requested));
+        while (paths.size() == requested.size()) {
+            String path = paths.get(folderId);
+            Set<Long> ids = new TreeSet<>(requested);
+            paths.values().forEach(folderPath -> ids.addAll(ancestorIds(folderPath)));
+            Map<Long, String> locked = toMap(folderRepository.lockSubtreePaths(path, ids));
+            locked.keySet().retainAll(requested);
+            // Chemins inchangés depuis la première lecture : tous les dossiers utiles sont verrouillés
+            if (locked.equals(paths)) {
+                break;
+            }
+            paths = locked;
+        }
+        Folder folder = lockFolder(folderId, owner);
+        if (otherFolderId != null) {
+            lockFolder(otherFolderId, owner);
+        }
+        return folder;
+    }
+
+    // Verrouille le dossier jusqu'au commit : son chemin, son nom et ses sous-dossiers directs ne peuvent
+    // pas changer. Les cumuls et les déplacements verrouillent en plus les ancêtres (voir lockSubtree).
+    public Folder lockFolder(Long folderId, User owner) {
+        Folder folder = folderRepository.findByIdForUpdate(folderId)
+                .orElseThrow(() -> new RuntimeException("Folder not found with id: " + folderId));
+        if (!folder.getOwnerId().equals(owner.getId())) {
+            throw new RuntimeException("You are not the owner of this folder");
+        }
+        return folder;
+    }
+
+    private void checkNameAvailable(Long ownerId, Long parentId, String name) {
+        boolean exists = parentId == null
+                ? folderRepository.existsByOwnerIdAndParentIdIsNullAndName(ownerId, name)
+                : folderRepository.existsByOwnerIdAndParentIdAndName(ownerId, parentId, name);
+        if (exists) {
+            throw new RuntimeException("A folder named \"" + name + "\" already exists here");
+        }
+    }
+
+    // checkNameAvailable ne voit pas un dossier homonyme créé ou déplacé en même temps : la contrainte
+    // unique (propriétaire, parent, nom) le refuse, avec le même message
+    private <T> T withUniqueName(String name, Supplier<T> write) {
+        try {
+            return write.get();
+        } catch (DataIntegrityViolationException e) {
+            String cause = String.valueOf(e.getMostSpecificCause().getMessage()).toLowerCase();
+            if (cause.contains("uk_folders_owner_parent_name")) {
+                throw new RuntimeException("A folder named \"" + name + "\" already exists here");
+            }
+            throw e;
+        }
+    }
+
+    private String validateName(String name) {
+        if (name == null || name.isBlank()) {
+            throw new RuntimeException("Folder name is required");
+        }
+        String trimmed = name.trim();
+        if (trimmed.length() > 255 || trimmed.contains("/") || trimmed.contains("\\")
+                || trimmed.equals(".") || trimmed.equals("..")) {
+            throw new RuntimeException("Invalid folder name");
+        }
+        return trimmed;
+    }
+}
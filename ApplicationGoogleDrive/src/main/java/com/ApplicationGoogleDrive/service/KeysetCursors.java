@@ -0,0 +1,116 @@
+package com.ApplicationGoogleDrive.service;
+
+import com.ApplicationGoogleDrive.dto.CursorPage;
+import com.ApplicationGoogleDrive.dto.ListingRequest;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Encodage opaque des positions de pagination par clé (keyset) : la page N coûte autant que la première,
+// contrairement à un OFFSET qui relit toutes les lignes précédentes
+final class KeysetCursors {
+
+    private KeysetCursors() {
+    }
+
+    // Tri sur le champ demandé, puis sur l'id pour départager les égalités
+    static Sort sort(ListingRequest request, Set<String> allowedFields, String defaultField) {
+        String field = request.getSort() != null ? request.getSort() : defaultField;
+        if (!allowedFields.contains(field)) {
+            throw new IllegalArgumentException("Unsupported sort field: " + field + ", allowed: " + allowedFields);
+        }
+        Sort.Direction direction = request.isAscending() ? Sort.Direction.ASC : Sort.Direction.DESC;
+        return Sort.by(direction, field).and(Sort.by(direction, "id"));
+    }
+
+    static ScrollPosition decode(String cursor, Sort sort) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+
+        List<String> expectedFields = new ArrayList<>();
+        sort.forEach(order -> expectedFields.add(order.getProperty()));
+
+        // Toute erreur de décodage (curseur altéré ou tronqué) est une erreur du client
+        Map<String, Object> keys = new LinkedHashMap<>();
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            for (String entry : decoded.split(",")) {
+                String[] parts = entry.split(":", 3);
+                if (parts.length != 3) {
+                    throw new IllegalArgumentException("Invalid cursor");
+                }
+                keys.put(parts[0], decodeValue(parts[1],
+                        new String(Base64.getUrlDecoder().decode(parts[2]), StandardCharsets.UTF_8)));
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+
+        // Un curseur n'est valable que pour le tri qui l'a produit
+        if (!new ArrayList<>(keys.keySet()).equals(expectedFields)) {
+            throw new IllegalArgumentException("Cursor does not match the requested sort");
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+    static <T> CursorPage<T> toPage(Window<T> window) {
+        String nextCursor = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            nextCursor = encode((KeysetScrollPosition) window.positionAt(window.size() - 1));
+        }
+        return new CursorPage<>(window.getContent(), nextCursor, window.hasNext());
+    }
+
+    static String encode(KeysetScrollPosition position) {
+        List<String> entries = new ArrayList<>();
+        position.getKeys().forEach((field, value) -> entries.add(field + ":" + typeOf(value) + ":"
+                + Base64.getUrlEncoder().withoutPadding().encodeToString(
+                (value != null ? value.toString() : "").getBytes(StandardCharsets.UTF_8))));
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.join(",", entries).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Une valeur nulle a son propre type : elle ne doit pas être relue comme la chaîne "null"
+    private static String typeOf(Object value) {
+        if (value == null) {
+            return "N";
+        }
+        if (value instanceof LocalDateTime) {
+            return "T";
+        }
+        if (value instanceof Number) {
+            return "L";
+        }
+        return "S";
+    }
+
+    private static Object decodeValue(String type, String value) {
+        try {
+            return switch (type) {
+                case "T" -> LocalDateTime.parse(value);
+                case "L" -> Long.valueOf(value);
+                case "S" -> value;
+                case "N" -> {
+                    if (!value.isEmpty()) {
+                        throw new IllegalArgumentException("Invalid cursor");
+                    }
+                    yield null;
+                }
+                default -> throw new IllegalArgumentException("Invalid cursor");
+            };
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
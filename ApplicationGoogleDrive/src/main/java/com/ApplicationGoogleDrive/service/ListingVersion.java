@@ -0,0 +1,24 @@
+package com.ApplicationGoogleDrive.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Version des listes (fichiers, accès accordés, demandes), incrémentée après chaque écriture validée.
+// Sert d'ETag faible aux listes : une requête conditionnelle est résolue sans lire la base.
+// Le préfixe de démarrage invalide les ETags émis avant un redémarrage.
+@Component
+public class ListingVersion {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+
+    public String current() {
+        return epoch + "." + version.get();
+    }
+
+    // Après le commit : un client ne peut pas mettre en cache l'ancienne liste sous la nouvelle version
+    public void bumpAfterCommit() {
+        AfterCommit.run(version::incrementAndGet);
+    }
+}
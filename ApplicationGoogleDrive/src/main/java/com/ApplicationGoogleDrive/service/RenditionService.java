@@ -0,0 +1,259 @@
+package com.ApplicationGoogleDrive.service;
+
+import com.ApplicationGoogleDrive.model.File;
+import com.ApplicationGoogleDrive.storage.StorageBackend;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+// Miniatures et aperçus (JPEG) des images et de la première page des PDF.
+// Les rendus sont stockés à côté du contenu original, sous la clé de stockage : un contenu
+// dédupliqué partage donc aussi ses rendus. Générés en arrière-plan après l'upload,
+// ou à la demande si absents ; deux requêtes simultanées pour le même rendu n'en produisent qu'un.
+@Slf4j
+@Service
+public class RenditionService {
+
+    private static final String FORMAT = "jpg";
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    // Au-delà, l'image n'est pas rendue : même sous-échantillonné, son décodage parcourt chaque pixel
+    @Value("${files.renditions.max-pixels:100000000}")
+    private long maxPixels;
+
+    private final int[] sizes;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, CompletableFuture<Path>> inProgress = new ConcurrentHashMap<>();
+
+    public RenditionService(@Value("${files.renditions.sizes:128,512,1024}") int[] sizes,
+                            @Value("${files.renditions.workers:2}") int workers,
+                            @Value("${files.renditions.queue-capacity:500}") int queueCapacity) {
+        this.sizes = Arrays.stream(sizes).sorted().toArray();
+        // File pleine : la génération anticipée est abandonnée, le rendu sera produit à la première demande
+        this.executor = WorkerPools.bounded("rendition", workers, queueCapacity, Thread.MIN_PRIORITY,
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Les contenus stockés compressés sont des formats texte, sans rendu
+    public boolean supports(File file) {
+        return file.getStorageEncoding() == null && (isImage(file) || isPdf(file));
+    }
+
+    // Plus petite taille configurée couvrant la taille demandée (la plus grande sinon)
+    public int normalizeSize(int requested) {
+        for (int size : sizes) {
+            if (size >= requested) {
+                return size;
+            }
+        }
+        return sizes[sizes.length - 1];
+    }
+
+    // Génération anticipée de toutes les tailles, après le commit de l'upload
+    public void generateAfterCommit(File file) {
+        if (!supports(file)) {
+            return;
+        }
+        Runnable task = () -> {
+            for (int size : sizes) {
+                try {
+                    getRendition(file, size);
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Could not render {} at {}px: {}", file.getId(), size, e.getMessage());
+                    return;
+                }
+            }
+        };
+        AfterCommit.run(() -> {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                log.debug("Rendition queue full, {} will be rendered on first preview", file.getId());
+            }
+        });
+    }
+
+    // Chemin du rendu, généré s'il n'existe pas encore. Vide si le fichier n'est pas une image ou un PDF.
+    public Optional<Path> getRendition(File file, int requestedSize) throws IOException {
+        if (!supports(file)) {
+            return Optional.empty();
+        }
+        int size = normalizeSize(requestedSize);
+        String key = renditionKey(file.getFilePath(), size);
+        Path target = storageBackend.resolve(key);
+        if (Files.exists(target)) {
+            return Optional.of(target);
+        }
+
+        // Un seul producteur par rendu : les autres requêtes attendent son résultat
+        CompletableFuture<Path> created = new CompletableFuture<>();
+        CompletableFuture<Path> existing = inProgress.putIfAbsent(key, created);
+        if (existing != null) {
+            return Optional.of(await(existing));
+        }
+
+        try {
+            // Le producteur précédent a pu terminer entre la vérification et la réservation
+            if (!Files.exists(target)) {
+                render(file, size, key, target);
+            }
+            created.complete(target);
+            return Optional.of(target);
+        } catch (IOException | RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inProgress.remove(key);
+        }
+    }
+
+    // Supprime les rendus d'un contenu (appelé quand ses octets sont supprimés)
+    public void deleteRenditions(String storageKey) {
+        for (int size : sizes) {
+            try {
+                storageBackend.delete(renditionKey(storageKey, size));
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not delete rendition {}px of {}: {}", size, storageKey, e.getMessage());
+            }
+        }
+    }
+
+    private void render(File file, int size, String key, Path target) throws IOException {
+        long start = System.currentTimeMillis();
+        Path original = storageBackend.resolve(file.getFilePath());
+
+        BufferedImage source = isPdf(file) ? renderFirstPage(original, size) : readImage(original, size);
+        BufferedImage scaled = scale(source, size);
+
+        // Écriture à côté de la cible puis renommage : un rendu visible est toujours complet
+        Path temp = target.resolveSibling(target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        Files.createDirectories(target.getParent());
+        try {
+            if (!ImageIO.write(scaled, FORMAT, temp.toFile())) {
+                throw new IOException("No JPEG writer available");
+            }
+            storageBackend.moveIn(temp, key);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        log.debug("Rendered file {} at {}px in {} ms", file.getId(), size, System.currentTimeMillis() - start);
+    }
+
+    // Dimensions lues dans l'en-tête, puis décodage d'un pixel sur N : l'image n'est jamais allouée en pleine
+    // résolution (un PNG de quelques Ko peut décrire 30000×30000 pixels, soit 3,6 Go une fois décodé)
+    private BufferedImage readImage(Path original, int size) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                long width = reader.getWidth(0);
+                long height = reader.getHeight(0);
+                if (width * height > maxPixels) {
+                    throw new IOException("Image too large to render: " + width + "x" + height);
+                }
+                // Au moins deux fois la taille cible est conservée, pour une réduction finale lisse
+                int step = (int) Math.max(1, Math.max(width, height) / (2L * size));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage renderFirstPage(Path pdf, int size) throws IOException {
+        try (PDDocument document = Loader.loadPDF(pdf.toFile())) {
+            if (document.getNumberOfPages() == 0) {
+                throw new IOException("PDF has no pages");
+            }
+            // Résolution juste suffisante pour la taille demandée (une page A4 fait 842 points de haut)
+            float height = document.getPage(0).getMediaBox().getHeight();
+            float scale = Math.min(4f, Math.max(0.1f, size / Math.max(1f, height)));
+            return new PDFRenderer(document).renderImage(0, scale, ImageType.RGB);
+        }
+    }
+
+    // Réduction en gardant les proportions ; fond blanc pour les images transparentes (JPEG)
+    private BufferedImage scale(BufferedImage source, int size) {
+        double ratio = Math.min(1.0, (double) size / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private Path await(CompletableFuture<Path> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new RuntimeException("Rendition failed: " + e.getCause().getMessage());
+        }
+    }
+
+    private String renditionKey(String storageKey, int size) {
+        return storageBackend.variantKey(storageKey, size + "." + FORMAT);
+    }
+
+    private boolean isImage(File file) {
+        return file.getFileType() != null && file.getFileType().startsWith("image/")
+                && !file.getFileType().contains("svg");
+    }
+
+    private boolean isPdf(File file) {
+        return file.getFileType() != null && file.getFileType().contains("pdf");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,50 @@
+package com.ApplicationGoogleDrive.service;
+
+import com.ApplicationGoogleDrive.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Réconciliation périodique des compteurs d'utilisation : une transaction courte par utilisateur
+@Slf4j
+@Component
+public class StorageUsageReconciler {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private StorageUsageService storageUsageService;
+
+    @Scheduled(cron = "${files.quota.reconcile-cron:0 30 3 * * *}")
+    public void reconcileAll() {
+        long start = System.currentTimeMillis();
+        int users = 0;
+        int repaired = 0;
+        Long afterId = 0L;
+        List<Long> batch;
+        do {
+            batch = userRepository.findIdsAfter(afterId, PageRequest.of(0, 500));
+            for (Long userId : batch) {
+                try {
+                    if (storageUsageService.reconcileUser(userId)) {
+                        repaired++;
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Storage usage reconciliation failed for user {}: {}", userId, e.getMessage());
+                }
+                users++;
+            }
+            if (!batch.isEmpty()) {
+                afterId = batch.get(batch.size() - 1);
+            }
+        } while (batch.size() == 500);
+
+        log.info("Storage usage reconciled for {} users ({} repaired) in {} ms",
+                users, repaired, System.currentTimeMillis() - start);
+    }
+}
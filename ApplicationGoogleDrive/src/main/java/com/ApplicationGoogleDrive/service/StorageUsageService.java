@@ -0,0 +1,231 @@
+package com.ApplicationGoogleDrive.service;
+
+import com.ApplicationGoogleDrive.dto.UsageAggregate;
+import com.ApplicationGoogleDrive.model.StorageUsage;
+import com.ApplicationGoogleDrive.model.User;
+import com.ApplicationGoogleDrive.repository.StorageUsageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Utilisation du stockage par utilisateur : compteurs mis à jour dans la transaction qui ajoute ou supprime
+// les fichiers (jamais de SUM sur la table files pendant une requête), quota vérifié avant l'écriture
+// des octets puis appliqué de façon atomique à l'enregistrement. Les compteurs d'un utilisateur sont
+// calculés depuis la table files à leur première utilisation ; une réconciliation nocturne corrige
+// ensuite les écarts (fichiers modifiés hors de l'application).
+@Slf4j
+@Service
+public class StorageUsageService {
+
+    @Autowired
+    private StorageUsageRepository storageUsageRepository;
+
+    // Quota par défaut en octets ; négatif : illimité
+    @Value("${files.quota.default-bytes:10737418240}")
+    private long defaultQuota;
+
+    // Quota de l'utilisateur (négatif : illimité)
+    public long quotaOf(Long userId) {
+        return storageUsageRepository.findByUserIdAndCategory(userId, StorageUsage.ALL)
+                .map(StorageUsage::getQuotaBytes)
+                .filter(Objects::nonNull)
+                .orElse(defaultQuota);
+    }
+
+    // Octets encore disponibles (Long.MAX_VALUE si illimité)
+    public long remainingBytes(Long userId) {
+        long quota = quotaOf(userId);
+        if (quota < 0) {
+            return Long.MAX_VALUE;
+        }
+        long used = storageUsageRepository.findByUserIdAndCategory(userId, StorageUsage.ALL)
+                .map(StorageUsage::getBytes)
+                .orElse(0L);
+        return Math.max(0, quota - used);
+    }
+
+    // Vérification anticipée, avant d'écrire le moindre octet ; l'enregistrement revérifie de façon atomique
+    public void checkQuota(User owner, long additionalBytes) {
+        if (additionalBytes > remainingBytes(owner.getId())) {
+            throw new RuntimeException("Storage quota exceeded");
+        }
+    }
+
+    // Dans la transaction d'enregistrement du fichier : échoue (et annule tout) si le quota serait dépassé
+    @Transactional
+    public void recordFileAdded(Long userId, String fileType, long size) {
+        // Le fichier n'est pas encore en base : les compteurs initialisés n'en tiennent pas compte
+        initialize(userId);
+        if (storageUsageRepository.addWithinQuota(userId, size, 1, defaultQuota) == 0) {
+            throw new RuntimeException("Storage quota exceeded");
+        }
+        storageUsageRepository.add(userId, categoryOf(fileType), size, 1);
+    }
+
+    // Appelé après la suppression des lignes files : des compteurs initialisés ici l'ont déjà prise en compte
+    @Transactional
+    public void recordFileRemoved(Long userId, String fileType, long size) {
+        if (initialize(userId)) {
+            return;
+        }
+        storageUsageRepository.add(userId, StorageUsage.ALL, -size, -1);
+        storageUsageRepository.add(userId, categoryOf(fileType), -size, -1);
+    }
+
+    // Suppressions groupées : une instruction par catégorie ({fichiers, octets} par type MIME)
+    @Transactional
+    public void recordFilesRemoved(Long userId, Map<String, long[]> removedByType) {
+        Map<String, long[]> byCategory = new HashMap<>();
+        long files = 0;
+        long bytes = 0;
+        for (Map.Entry<String, long[]> removed : removedByType.entrySet()) {
+            long[] total = byCategory.computeIfAbsent(categoryOf(removed.getKey()), category -> new long[2]);
+            total[0] += removed.getValue()[0];
+            total[1] += removed.getValue()[1];
+            files += removed.getValue()[0];
+            bytes += removed.getValue()[1];
+        }
+        if (files == 0 || initialize(userId)) {
+            return;
+        }
+        storageUsageRepository.add(userId, StorageUsage.ALL, -bytes, -files);
+        byCategory.forEach((category, total) -> storageUsageRepository.add(userId, category, -total[1], -total[0]));
+    }
+
+    @Transactional
+    public Map<String, Object> getUsage(Long userId) {
+        initialize(userId);
+        Map<String, Object> byType = new LinkedHashMap<>();
+        long bytesUsed = 0;
+        long fileCount = 0;
+        for (StorageUsage usage : storageUsageRepository.findByUserId(userId)) {
+            if (StorageUsage.ALL.equals(usage.getCategory())) {
+                bytesUsed = usage.getBytes();
+                fileCount = usage.getFileCount();
+            } else if (usage.getFileCount() > 0) {
+                byType.put(usage.getCategory(), Map.of("bytes", usage.getBytes(), "fileCount", usage.getFileCount()));
+            }
+        }
+
+        long quota = quotaOf(userId);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("bytesUsed", bytesUsed);
+        response.put("fileCount", fileCount);
+        response.put("quotaBytes", quota < 0 ? null : quota);
+        response.put("remainingBytes", quota < 0 ? null : Math.max(0, quota - bytesUsed));
+        response.put("byType", byType);
+        return response;
+    }
+
+    // Verrouille les compteurs de l'utilisateur jusqu'au commit, avant une opération qui verrouille ensuite
+    // des dossiers (ordre des verrous : voir FileService)
+    @Transactional
+    public void lockUsage(Long userId) {
+        initialize(userId);
+        storageUsageRepository.findForUpdate(userId, StorageUsage.ALL);
+    }
+
+    // Recalcul depuis la table files, ligne "all" verrouillée : un upload concurrent attend la correction.
+    // Renvoie true si un compteur a été corrigé.
+    @Transactional
+    public boolean reconcileUser(Long userId) {
+        storageUsageRepository.ensureRow(userId, StorageUsage.ALL);
+        storageUsageRepository.findForUpdate(userId, StorageUsage.ALL);
+        return recompute(userId, true);
+    }
+
+    // Première utilisation des compteurs d'un utilisateur (fichiers envoyés avant leur création) : calculés
+    // depuis la table files dans la transaction courante, sans attendre la réconciliation nocturne.
+    // La ligne "all" créée reste verrouillée jusqu'au commit. Renvoie true si les compteurs viennent d'être créés.
+    private boolean initialize(Long userId) {
+        if (storageUsageRepository.ensureRow(userId, StorageUsage.ALL) == 0) {
+            return false;
+        }
+        recompute(userId, false);
+        return true;
+    }
+
+    private boolean recompute(Long userId, boolean logDrift) {
+        Map<String, long[]> actual = new HashMap<>();
+        long[] total = new long[2];
+        for (UsageAggregate aggregate : storageUsageRepository.aggregateFilesByType(userId)) {
+            long[] category = actual.computeIfAbsent(categoryOf(aggregate.getFileType()), key -> new long[2]);
+            category[0] += aggregate.getFileCount();
+            category[1] += aggregate.getBytes();
+            total[0] += aggregate.getFileCount();
+            total[1] += aggregate.getBytes();
+        }
+        actual.put(StorageUsage.ALL, total);
+
+        boolean repaired = false;
+        Map<String, StorageUsage> stored = new HashMap<>();
+        storageUsageRepository.findByUserId(userId).forEach(usage -> stored.put(usage.getCategory(), usage));
+        for (String category : union(stored.keySet(), actual.keySet())) {
+            long[] expected = actual.getOrDefault(category, new long[2]);
+            StorageUsage usage = stored.get(category);
+            if (usage == null) {
+                usage = new StorageUsage();
+                usage.setUserId(userId);
+                usage.setCategory(category);
+            } else if (usage.getFileCount() == expected[0] && usage.getBytes() == expected[1]) {
+                continue;
+            }
+
+            if (logDrift) {
+                log.warn("Storage usage drift for user {} ({}): {} files / {} bytes recorded, {} / {} actual",
+                        userId, category, usage.getFileCount(), usage.getBytes(), expected[0], expected[1]);
+            }
+            usage.setFileCount(expected[0]);
+            usage.setBytes(expected[1]);
+            usage.setUpdatedAt(LocalDateTime.now());
+            storageUsageRepository.save(usage);
+            repaired = true;
+        }
+        // Écrit avant les mises à jour natives (addWithinQuota, add) qui suivent dans la même transaction
+        storageUsageRepository.flush();
+        if (!logDrift) {
+            log.info("Storage usage initialized for user {}: {} files / {} bytes", userId, total[0], total[1]);
+        }
+        return repaired;
+    }
+
+    // Catégorie d'affichage d'un type MIME
+    static String categoryOf(String fileType) {
+        String type = fileType != null ? fileType.toLowerCase(Locale.ROOT) : "";
+        if (type.startsWith("image/")) {
+            return "image";
+        }
+        if (type.startsWith("video/")) {
+            return "video";
+        }
+        if (type.startsWith("audio/")) {
+            return "audio";
+        }
+        if (type.contains("zip") || type.contains("compressed") || type.contains("rar") || type.contains("tar")) {
+            return "archive";
+        }
+        if (type.startsWith("text/") || type.contains("pdf") || type.contains("word") || type.contains("excel")
+                || type.contains("powerpoint") || type.contains("officedocument") || type.contains("opendocument")
+                || type.endsWith("/json") || type.endsWith("/xml") || type.endsWith("/csv")) {
+            return "document";
+        }
+        return "other";
+    }
+
+    private static Set<String> union(Set<String> first, Set<String> second) {
+        Set<String> all = new TreeSet<>(first);
+        all.addAll(second);
+        return all;
+    }
+}
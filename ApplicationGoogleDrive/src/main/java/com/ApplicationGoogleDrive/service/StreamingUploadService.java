@@ -0,0 +1,163 @@
+package com.ApplicationGoogleDrive.service;
+
+import com.ApplicationGoogleDrive.model.File;
+import com.ApplicationGoogleDrive.model.User;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.fileupload2.core.DiskFileItem;
+import org.apache.commons.fileupload2.core.DiskFileItemFactory;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.core.FileUploadByteCountLimitException;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Upload multipart lu directement dans le flux de la requête : la partie fichier est écrite une seule
+// fois, dans la zone temporaire du volume de destination (hachage et taille calculés au passage),
+// puis simplement renommée. Ni Tomcat ni Spring ne recopient les octets dans un fichier temporaire.
+@Slf4j
+@Service
+public class StreamingUploadService {
+
+    private static final int SNIFF_LENGTH = 64;
+    private static final int MAX_FIELD_LENGTH = 64 * 1024;
+    // Marge pour les en-têtes multipart et les champs texte dans la taille totale de la requête
+    private static final long MULTIPART_OVERHEAD = 1024 * 1024;
+
+    @Autowired
+    private ContentStoreService contentStoreService;
+
+    @Autowired
+    private FileService fileService;
+
+    @Autowired
+    private StorageUsageService storageUsageService;
+
+    @Value("${files.upload.stream.max-size:10737418240}")
+    private long maxSize;
+
+    public boolean isMultipart(HttpServletRequest request) {
+        return JakartaServletFileUpload.isMultipartContent(request);
+    }
+
+    // Champs attendus : file (une seule partie fichier), description, isPublic, folderId, dans n'importe quel ordre
+    public File ingest(HttpServletRequest request, User owner) throws IOException {
+        // Quota : requête refusée d'après sa taille annoncée, puis lecture interrompue dès que la partie
+        // fichier dépasse l'espace restant (l'enregistrement revérifie de façon atomique)
+        long remaining = storageUsageService.remainingBytes(owner.getId());
+        long declaredLength = request.getContentLengthLong();
+        if (declaredLength > 0 && remaining < Long.MAX_VALUE - MULTIPART_OVERHEAD
+                && declaredLength > remaining + MULTIPART_OVERHEAD) {
+            throw new RuntimeException("Storage quota exceeded");
+        }
+
+        JakartaServletFileUpload<DiskFileItem, DiskFileItemFactory> upload = new JakartaServletFileUpload<>();
+        upload.setSizeMax(maxSize);
+        upload.setFileSizeMax(Math.min(maxSize, remaining));
+
+        Map<String, String> fields = new HashMap<>();
+        ContentStoreService.StagedContent staged = null;
+        String fileName = null;
+        String contentType = null;
+        long start = System.nanoTime();
+
+        try {
+            FileItemInputIterator items = upload.getItemIterator(request);
+            while (items.hasNext()) {
+                FileItemInput item = items.next();
+                try (InputStream in = item.getInputStream()) {
+                    if (item.isFormField()) {
+                        fields.put(item.getFieldName(), readField(in));
+                        continue;
+                    }
+                    if (staged != null) {
+                        throw new RuntimeException("Only one file can be sent per request");
+                    }
+
+                    // Détection du type sur les premiers octets, sans relire le flux
+                    BufferedInputStream buffered = new BufferedInputStream(in, 65536);
+                    fileName = item.getName();
+                    contentType = resolveContentType(item.getContentType(), buffered);
+                    staged = contentStoreService.stage(buffered, contentType);
+                }
+            }
+
+            if (staged == null) {
+                throw new RuntimeException("No file part in the request");
+            }
+
+            String folderId = fields.get("folderId");
+            File saved = fileService.saveStagedFile(staged, fileName, contentType, fields.get("description"),
+                    Boolean.parseBoolean(fields.getOrDefault("isPublic", "false")), owner,
+                    folderId != null && !folderId.isBlank() ? Long.valueOf(folderId.trim()) : null);
+            staged = null;
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+            log.info("Streamed upload of {} ({} bytes) in {} ms, {} MB/s", saved.getFileName(), saved.getFileSize(),
+                    Math.round(seconds * 1000), String.format("%.1f", saved.getFileSize() / 1048576.0 / Math.max(seconds, 1e-6)));
+            return saved;
+        } catch (FileUploadByteCountLimitException e) {
+            // Limite de la partie fichier fixée par l'espace restant : même erreur que les autres uploads
+            if (e.getPermitted() < maxSize) {
+                throw new RuntimeException("Storage quota exceeded");
+            }
+            throw e;
+        } finally {
+            // Échec avant l'enregistrement : le contenu préparé n'est référencé par personne
+            if (staged != null) {
+                Files.deleteIfExists(staged.path());
+            }
+        }
+    }
+
+    private String readField(InputStream in) throws IOException {
+        byte[] value = in.readNBytes(MAX_FIELD_LENGTH + 1);
+        if (value.length > MAX_FIELD_LENGTH) {
+            throw new RuntimeException("Form field too large");
+        }
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    // Type déclaré par le client s'il est précis, sinon déduit des premiers octets
+    private String resolveContentType(String declared, BufferedInputStream in) throws IOException {
+        if (declared != null && !declared.isBlank() && !declared.startsWith("application/octet-stream")) {
+            return declared;
+        }
+
+        in.mark(SNIFF_LENGTH);
+        byte[] head = in.readNBytes(SNIFF_LENGTH);
+        in.reset();
+
+        if (startsWith(head, "%PDF-")) {
+            return "application/pdf";
+        }
+        if (startsWith(head, "PK\u0003\u0004")) {
+            return "application/zip";
+        }
+        if (head.length >= 2 && (head[0] & 0xff) == 0x1f && (head[1] & 0xff) == 0x8b) {
+            return "application/gzip";
+        }
+        String guessed = URLConnection.guessContentTypeFromStream(in);
+        if (guessed != null) {
+            return guessed;
+        }
+        return declared != null && !declared.isBlank() ? declared : "application/octet-stream";
+    }
+
+    private boolean startsWith(byte[] head, String magic) {
+        byte[] expected = magic.getBytes(StandardCharsets.ISO_8859_1);
+        return head.length >= expected.length && Arrays.equals(head, 0, expected.length, expected, 0, expected.length);
+    }
+}
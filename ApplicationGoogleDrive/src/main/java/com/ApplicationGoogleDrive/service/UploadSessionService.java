@@ -0,0 +1,367 @@
+package com.ApplicationGoogleDrive.service;
+
+import com.ApplicationGoogleDrive.model.File;
+import com.ApplicationGoogleDrive.model.UploadSession;
+import com.ApplicationGoogleDrive.model.User;
+import com.ApplicationGoogleDrive.repository.UploadSessionRepository;
+import com.ApplicationGoogleDrive.storage.StorageBackend;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+public class UploadSessionService {
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private FileService fileService;
+
+    @Autowired
+    private ContentStoreService contentStoreService;
+
+    @Autowired
+    private FolderService folderService;
+
+    @Autowired
+    private StorageUsageService storageUsageService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Les morceaux sont stockés sur le volume de destination pour que la finalisation se termine par un renommage
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @Value("${files.upload-sessions.ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    @Value("${files.upload-sessions.min-chunk-size:65536}")
+    private int minChunkSize;
+
+    @Value("${files.upload-sessions.max-chunk-size:67108864}")
+    private int maxChunkSize;
+
+    @Transactional
+    public UploadSession createSession(String fileName, String fileType, long totalSize, int chunkSize,
+                                       String description, boolean isPublic, User owner, Long folderId) {
+        if (totalSize <= 0) {
+            throw new RuntimeException("File size must be positive");
+        }
+        if (chunkSize < minChunkSize || chunkSize > maxChunkSize) {
+            throw new RuntimeException("Chunk size must be between " + minChunkSize + " and " + maxChunkSize + " bytes");
+        }
+
+        // Dossier et quota vérifiés dès la création : pas d'upload complet refusé à la dernière étape
+        folderService.requireOwnedFolder(folderId, owner);
+        storageUsageService.checkQuota(owner, totalSize);
+
+        long totalChunks = chunkCount(totalSize, chunkSize);
+        if (totalChunks > Integer.MAX_VALUE) {
+            throw new RuntimeException("Too many chunks, use a larger chunk size");
+        }
+
+        UploadSession session = new UploadSession();
+        session.setId(UUID.randomUUID().toString());
+        session.setOwner(owner);
+        session.setFileName(fileName);
+        session.setFileType(fileType);
+        session.setDescription(description);
+        session.setPublic(isPublic);
+        session.setFolderId(folderId);
+        session.setTotalSize(totalSize);
+        session.setChunkSize(chunkSize);
+        session.setTotalChunks((int) totalChunks);
+        session.setExpiresAt(LocalDateTime.now().plusMinutes(ttlMinutes));
+        session.setStorageVolume(storageBackend.selectVolume());
+
+        UploadSession saved = uploadSessionRepository.save(session);
+        log.info("Upload session {} created by {} for {} ({} bytes, {} chunks)",
+                saved.getId(), owner.getEmail(), fileName, totalSize, totalChunks);
+        return saved;
+    }
+
+    public UploadSession getSession(String sessionId, User user) {
+        UploadSession session = uploadSessionRepository.findById(sessionId)
+                .orElseThrow(() -> new RuntimeException("Upload session not found: " + sessionId));
+
+        if (!session.getOwner().getId().equals(user.getId())) {
+            throw new RuntimeException("You are not the owner of this upload session");
+        }
+        if (session.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new RuntimeException("Upload session has expired");
+        }
+        return session;
+    }
+
+    // Pas de transaction ici : la connexion JDBC n'est pas retenue pendant la réception du morceau
+    public long writeChunk(String sessionId, int index, InputStream data, User user) throws IOException {
+        UploadSession session = getSession(sessionId, user);
+        if (session.getFinalizingSince() != null) {
+            throw new RuntimeException("Upload session is being finalized");
+        }
+
+        if (index < 0 || index >= session.getTotalChunks()) {
+            throw new RuntimeException("Invalid chunk index: " + index);
+        }
+
+        long expectedSize = expectedChunkSize(session, index);
+        Path sessionDir = sessionDirectory(session);
+        Files.createDirectories(sessionDir);
+
+        // Écriture dans un fichier temporaire puis renommage : un morceau visible est toujours complet
+        Path tempChunk = sessionDir.resolve(index + ".part." + UUID.randomUUID() + ".tmp");
+        long written;
+        try {
+            written = copyAtMost(data, tempChunk, expectedSize + 1);
+            if (written != expectedSize) {
+                throw new RuntimeException("Chunk " + index + " must be " + expectedSize + " bytes, received " + written);
+            }
+            Files.move(tempChunk, chunkPath(sessionDir, index),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempChunk);
+        }
+
+        uploadSessionRepository.extendExpiration(sessionId, LocalDateTime.now().plusMinutes(ttlMinutes));
+        return written;
+    }
+
+    public List<Integer> getReceivedChunks(UploadSession session) throws IOException {
+        Path sessionDir = sessionDirectory(session);
+        List<Integer> received = new ArrayList<>();
+        for (int i = 0; i < session.getTotalChunks(); i++) {
+            if (Files.exists(chunkPath(sessionDir, i))) {
+                received.add(i);
+            }
+        }
+        return received;
+    }
+
+    // Offset reçu sans trou depuis le début du fichier : là où un client séquentiel doit reprendre
+    public long getContiguousOffset(UploadSession session, List<Integer> receivedChunks) {
+        long offset = 0;
+        for (int i = 0; i < receivedChunks.size() && receivedChunks.get(i) == i; i++) {
+            offset += expectedChunkSize(session, i);
+        }
+        return offset;
+    }
+
+    // Sans transaction englobante : aucune connexion JDBC n'est retenue pendant l'assemblage de plusieurs Go.
+    // La session est réservée par une mise à jour conditionnelle : une seconde finalisation (client qui
+    // réessaie), une annulation ou un morceau tardif sont refusés tant que celle-ci n'est pas terminée.
+    public File finalizeSession(String sessionId, User user) throws IOException {
+        UploadSession session = getSession(sessionId, user);
+        LocalDateTime now = LocalDateTime.now();
+        if (uploadSessionRepository.claimForFinalization(sessionId, now, now.plusMinutes(ttlMinutes)) == 0) {
+            throw new RuntimeException("Upload session is already being finalized");
+        }
+
+        boolean completed = false;
+        try {
+            File saved = assembleAndSave(session, user);
+            completed = true;
+            return saved;
+        } finally {
+            if (!completed) {
+                uploadSessionRepository.releaseFinalization(sessionId);
+            }
+        }
+    }
+
+    private File assembleAndSave(UploadSession session, User user) throws IOException {
+        Path sessionDir = sessionDirectory(session);
+
+        for (int i = 0; i < session.getTotalChunks(); i++) {
+            if (!Files.exists(chunkPath(sessionDir, i))) {
+                throw new RuntimeException("Missing chunk " + i + " of " + session.getTotalChunks());
+            }
+        }
+
+        // Contenu compressible : les morceaux sont relus en un seul flux et compressés à l'écriture
+        ContentStoreService.StagedContent staged;
+        if (contentStoreService.isCompressible(session.getFileType())) {
+            try (InputStream chunks = openChunks(sessionDir, session.getTotalChunks())) {
+                staged = contentStoreService.stage(chunks, session.getFileType());
+            }
+        } else {
+            staged = assemble(session, sessionDir);
+        }
+        if (staged.size() != session.getTotalSize()) {
+            Files.deleteIfExists(staged.path());
+            throw new RuntimeException("Assembled file size does not match the declared size");
+        }
+
+        // Transaction courte : enregistrement du fichier et suppression de la session ensemble
+        // (saveStagedFile supprime le fichier assemblé en cas d'échec)
+        File saved;
+        try {
+            saved = transactionTemplate.execute(status -> {
+                try {
+                    File file = fileService.saveStagedFile(staged, session.getFileName(), session.getFileType(),
+                            session.getDescription(), session.isPublic(), user, session.getFolderId());
+                    uploadSessionRepository.deleteById(session.getId());
+                    return file;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        try {
+            deleteSessionDirectory(sessionDir);
+        } catch (IOException e) {
+            // Fichier enregistré : les morceaux restants sont seulement de l'espace perdu
+            log.warn("Could not delete the chunks of upload session {}: {}", session.getId(), e.getMessage());
+        }
+        log.info("Upload session {} finalized into file {}", session.getId(), saved.getId());
+        return saved;
+    }
+
+    // Assemblage et calcul de l'empreinte en une passe : chaque morceau est lu une seule fois.
+    // Nom unique : un fichier assemblé n'est jamais partagé entre deux tentatives.
+    private ContentStoreService.StagedContent assemble(UploadSession session, Path sessionDir) throws IOException {
+        Path assembled = sessionDir.resolve("assembled." + UUID.randomUUID() + ".tmp");
+        MessageDigest digest = ContentStoreService.newDigest();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1024 * 1024);
+        try (FileChannel out = FileChannel.open(assembled, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            for (int i = 0; i < session.getTotalChunks(); i++) {
+                try (FileChannel in = FileChannel.open(chunkPath(sessionDir, i), StandardOpenOption.READ)) {
+                    while (in.read(buffer) != -1) {
+                        buffer.flip();
+                        digest.update(buffer.duplicate());
+                        while (buffer.hasRemaining()) {
+                            out.write(buffer);
+                        }
+                        buffer.clear();
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(assembled);
+            throw e;
+        }
+        return new ContentStoreService.StagedContent(assembled, ContentStoreService.toHex(digest.digest()),
+                Files.size(assembled), session.getStorageVolume());
+    }
+
+    private InputStream openChunks(Path sessionDir, int totalChunks) {
+        Iterator<Integer> indexes = IntStream.range(0, totalChunks).iterator();
+        return new SequenceInputStream(new Enumeration<InputStream>() {
+            @Override
+            public boolean hasMoreElements() {
+                return indexes.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                try {
+                    return Files.newInputStream(chunkPath(sessionDir, indexes.next()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+    }
+
+    public void cancelSession(String sessionId, User user) throws IOException {
+        UploadSession session = getSession(sessionId, user);
+        if (uploadSessionRepository.deleteIfNotFinalizing(sessionId) == 0) {
+            throw new RuntimeException("Upload session is being finalized");
+        }
+        deleteSessionDirectory(sessionDirectory(session));
+        log.info("Upload session {} cancelled by {}", sessionId, user.getEmail());
+    }
+
+    // Purge des sessions abandonnées ; une finalisation en cours a repoussé l'expiration de sa session
+    @Scheduled(fixedDelayString = "${files.upload-sessions.cleanup-interval-ms:600000}")
+    public void purgeExpiredSessions() {
+        LocalDateTime now = LocalDateTime.now();
+        int purged = 0;
+        for (UploadSession session : uploadSessionRepository.findByExpiresAtBefore(now)) {
+            try {
+                if (uploadSessionRepository.deleteIfExpired(session.getId(), now) == 1) {
+                    deleteSessionDirectory(sessionDirectory(session));
+                    purged++;
+                }
+            } catch (IOException e) {
+                log.warn("Could not purge upload session {}: {}", session.getId(), e.getMessage());
+            }
+        }
+        if (purged > 0) {
+            log.info("Purged {} expired upload sessions", purged);
+        }
+    }
+
+    // Nombre de morceaux, le dernier pouvant être plus court
+    static long chunkCount(long totalSize, int chunkSize) {
+        return (totalSize + chunkSize - 1) / chunkSize;
+    }
+
+    static long expectedChunkSize(UploadSession session, int index) {
+        long start = (long) index * session.getChunkSize();
+        return Math.min(session.getChunkSize(), session.getTotalSize() - start);
+    }
+
+    private Path sessionDirectory(UploadSession session) throws IOException {
+        return storageBackend.workDirectory(session.getStorageVolume(), ".sessions").resolve(session.getId());
+    }
+
+    private Path chunkPath(Path sessionDir, int index) {
+        return sessionDir.resolve(index + ".part");
+    }
+
+    private long copyAtMost(InputStream in, Path target, long limit) throws IOException {
+        byte[] buffer = new byte[8192];
+        long total = 0;
+        try (OutputStream out = Files.newOutputStream(target)) {
+            int read;
+            while (total < limit && (read = in.read(buffer, 0, (int) Math.min(buffer.length, limit - total))) != -1) {
+                out.write(buffer, 0, read);
+                total += read;
+            }
+        }
+        return total;
+    }
+
+    private void deleteSessionDirectory(Path sessionDir) throws IOException {
+        if (!Files.exists(sessionDir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(sessionDir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
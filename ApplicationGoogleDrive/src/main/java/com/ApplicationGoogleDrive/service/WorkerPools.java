@@ -0,0 +1,29 @@
+package com.ApplicationGoogleDrive.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Pools des traitements en arrière-plan : nombre de threads fixe, file d'attente bornée et politique
+// de rejet choisie par l'appelant. Threads démons nommés, qui ne retiennent pas l'arrêt de la JVM.
+final class WorkerPools {
+
+    private WorkerPools() {
+    }
+
+    static ThreadPoolExecutor bounded(String name, int workers, int queueCapacity, int priority,
+                                      RejectedExecutionHandler rejectionPolicy) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, name + "-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(priority);
+                    return thread;
+                },
+                rejectionPolicy);
+    }
+}
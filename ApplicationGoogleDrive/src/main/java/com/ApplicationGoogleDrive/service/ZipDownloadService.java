@@ -0,0 +1,153 @@
+package com.ApplicationGoogleDrive.service;
+
+import com.ApplicationGoogleDrive.model.File;
+import com.ApplicationGoogleDrive.model.User;
+import com.ApplicationGoogleDrive.repository.FileRepository;
+import com.ApplicationGoogleDrive.repository.FileSpecifications;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Téléchargement de plusieurs fichiers en une archive ZIP produite au fil de l'envoi :
+// aucun fichier temporaire, mémoire constante (un tampon de copie), premiers octets envoyés tout de suite.
+// Les médias déjà compressés sont copiés sans recompression (niveau 0), le reste est compressé.
+@Slf4j
+@Service
+public class ZipDownloadService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private FileService fileService;
+
+    @Value("${files.zip.max-files:1000}")
+    private int maxFiles;
+
+    // Rapide plutôt que compact : l'archive est produite pendant l'envoi
+    @Value("${files.zip.compression-level:1}")
+    private int compressionLevel;
+
+    // Types déjà compressés (préfixes), copiés tels quels dans l'archive
+    @Value("${files.zip.stored-types:image/,video/,audio/,application/zip,application/gzip,application/x-7z-compressed,application/vnd.rar,application/x-rar-compressed,application/pdf,application/vnd.openxmlformats-officedocument,application/vnd.oasis.opendocument}")
+    private String[] storedTypes;
+
+    // Vérifie l'accès à tous les fichiers en une requête ; échoue si l'un d'eux est absent ou inaccessible
+    public List<File> getFilesForArchive(List<Long> ids, User user) {
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        if (requested.isEmpty()) {
+            throw new RuntimeException("No file selected");
+        }
+        if (requested.size() > maxFiles) {
+            throw new RuntimeException("At most " + maxFiles + " files per archive");
+        }
+
+        Map<Long, File> visible = fileRepository.findAll(FileSpecifications.idIn(requested)
+                        .and(FileSpecifications.visibleTo(user.getId()))).stream()
+                .collect(Collectors.toMap(File::getId, Function.identity()));
+
+        List<Long> denied = requested.stream().filter(id -> !visible.containsKey(id)).toList();
+        if (!denied.isEmpty()) {
+            throw new RuntimeException("Access denied or file not found: " + denied);
+        }
+        return requested.stream().map(visible::get).toList();
+    }
+
+    public void writeArchive(List<File> files, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        long totalBytes = 0;
+        Set<String> usedNames = new HashSet<>();
+        List<Long> skipped = new ArrayList<>();
+        byte[] buffer = new byte[BUFFER_SIZE];
+
+        ZipOutputStream zip = new ZipOutputStream(out);
+        for (File file : files) {
+            InputStream content;
+            try {
+                content = fileService.openContent(file);
+            } catch (IOException | RuntimeException e) {
+                // Les en-têtes sont déjà envoyés : le fichier manquant est omis plutôt que de couper l'archive
+                log.warn("Skipping file {} in archive: {}", file.getId(), e.getMessage());
+                skipped.add(file.getId());
+                continue;
+            }
+
+            try (InputStream in = content) {
+                ZipEntry entry = new ZipEntry(uniqueName(file.getFileName(), usedNames));
+                if (file.getUploadedAt() != null) {
+                    entry.setTime(file.getUploadedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+                }
+                zip.setLevel(isAlreadyCompressed(file) ? Deflater.NO_COMPRESSION : compressionLevel);
+                zip.putNextEntry(entry);
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    zip.write(buffer, 0, read);
+                    totalBytes += read;
+                }
+                zip.closeEntry();
+            }
+        }
+        if (!skipped.isEmpty()) {
+            zip.setComment("Missing files: " + skipped);
+        }
+        zip.finish();
+        zip.flush();
+
+        log.info("Streamed archive of {} files ({} bytes) in {} ms", files.size() - skipped.size(), totalBytes,
+                System.currentTimeMillis() - start);
+    }
+
+    private boolean isAlreadyCompressed(File file) {
+        if (file.getStorageEncoding() != null || file.getFileType() == null) {
+            return false;
+        }
+        String type = file.getFileType().toLowerCase(Locale.ROOT);
+        if (type.contains("svg") || type.contains("bmp")) {
+            return false;
+        }
+        for (String storedType : storedTypes) {
+            if (type.startsWith(storedType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Nom d'entrée sans chemin, rendu unique dans l'archive : "rapport.pdf", "rapport (2).pdf"...
+    private String uniqueName(String fileName, Set<String> usedNames) {
+        String name = fileName == null || fileName.isBlank() ? "file" : fileName;
+        name = name.replace('\\', '_').replace('/', '_');
+        if (name.equals(".") || name.equals("..")) {
+            name = "file";
+        }
+
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+        String candidate = name;
+        for (int copy = 2; !usedNames.add(candidate.toLowerCase(Locale.ROOT)); copy++) {
+            candidate = base + " (" + copy + ")" + extension;
+        }
+        return candidate;
+    }
+}
@@ -0,0 +1,121 @@
+package com.ApplicationGoogleDrive.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Stockage sur un ou plusieurs points de montage locaux, avec une arborescence ab/cd/<id>
+// pour garder des répertoires de taille raisonnable. L'ordre des volumes ne doit pas changer :
+// l'indice du volume fait partie des clés enregistrées.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "files.storage.type", havingValue = "local", matchIfMissing = true)
+public class LocalStorageBackend implements StorageBackend {
+
+    private final List<Path> volumes = new ArrayList<>();
+    private final AtomicInteger nextVolume = new AtomicInteger();
+
+    public LocalStorageBackend(@Value("${files.storage.volumes:uploads}") String[] volumeLocations) {
+        for (String location : volumeLocations) {
+            if (!location.isBlank()) {
+                volumes.add(Paths.get(location.trim()).toAbsolutePath().normalize());
+            }
+        }
+        if (volumes.isEmpty()) {
+            throw new IllegalStateException("At least one storage volume must be configured");
+        }
+        log.info("Local storage backend using volumes {}", volumes);
+    }
+
+    @Override
+    public int selectVolume() {
+        return Math.floorMod(nextVolume.getAndIncrement(), volumes.size());
+    }
+
+    @Override
+    public String buildKey(int volume, String objectId) {
+        if (objectId.length() < 4) {
+            return volume + "/" + objectId;
+        }
+        return volume + "/" + objectId.substring(0, 2) + "/" + objectId.substring(2, 4) + "/" + objectId;
+    }
+
+    @Override
+    public String variantKey(String key, String variant) {
+        return key + "." + variant;
+    }
+
+    @Override
+    public Path resolve(String key) {
+        int separator = key.indexOf('/');
+        Path root;
+        String relative;
+        if (separator < 0) {
+            // Fichier historique, à plat dans le premier volume
+            root = volumes.get(0);
+            relative = key;
+        } else {
+            root = volume(Integer.parseInt(key.substring(0, separator)));
+            relative = key.substring(separator + 1);
+        }
+
+        Path resolved = root.resolve(relative).normalize();
+        if (!resolved.startsWith(root)) {
+            throw new RuntimeException("Invalid storage key: " + key);
+        }
+        return resolved;
+    }
+
+    @Override
+    public Path workDirectory(int volume, String name) throws IOException {
+        Path directory = volume(volume).resolve(name);
+        Files.createDirectories(directory);
+        return directory;
+    }
+
+    @Override
+    public Path createTempFile(int volume) throws IOException {
+        return workDirectory(volume, ".tmp").resolve(UUID.randomUUID() + ".tmp");
+    }
+
+    @Override
+    public boolean moveIn(Path source, String key) throws IOException {
+        Path target = resolve(key);
+        if (Files.exists(target)) {
+            Files.deleteIfExists(source);
+            return false;
+        }
+
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(source, target);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            Files.deleteIfExists(source);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        return Files.deleteIfExists(resolve(key));
+    }
+
+    private Path volume(int index) {
+        if (index < 0 || index >= volumes.size()) {
+            throw new RuntimeException("Unknown storage volume: " + index);
+        }
+        return volumes.get(index);
+    }
+}
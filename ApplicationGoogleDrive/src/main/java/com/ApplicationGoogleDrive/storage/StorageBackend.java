@@ -0,0 +1,33 @@
+package com.ApplicationGoogleDrive.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// Accès au stockage physique des fichiers, partagé par les services et les contrôleurs.
+// Les clés sont enregistrées dans File.filePath ; une clé sans '/' désigne un fichier historique
+// stocké à plat sur le premier volume.
+public interface StorageBackend {
+
+    // Volume qui recevra le prochain objet (répartition des écritures entre les disques)
+    int selectVolume();
+
+    // Clé hiérarchique d'un objet sur un volume, par exemple "1/ab/cd/abcdef..."
+    String buildKey(int volume, String objectId);
+
+    // Clé d'une variante stockée à côté de l'objet (miniatures, aperçus)
+    String variantKey(String key, String variant);
+
+    // Chemin local de l'objet, pour la lecture en flux et le sendfile
+    Path resolve(String key);
+
+    // Répertoire de travail d'un volume (fichiers temporaires, sessions d'upload)
+    Path workDirectory(int volume, String name) throws IOException;
+
+    // Fichier temporaire sur le volume donné : le placement final reste un simple renommage
+    Path createTempFile(int volume) throws IOException;
+
+    // Place le fichier sous la clé ; renvoie false (et supprime la source) si l'objet existe déjà
+    boolean moveIn(Path source, String key) throws IOException;
+
+    boolean delete(String key) throws IOException;
+}
@@ -0,0 +1,267 @@
+package com.ApplicationGoogleDrive.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileStreamingSupportTest {
+
+    private static final long LAST_MODIFIED = 1_700_000_000_000L;
+    private static final String ETAG = "\"content-1\"";
+
+    @TempDir
+    Path directory;
+
+    private final FileStreamingSupport streaming = new FileStreamingSupport();
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ReflectionTestUtils.setField(streaming, "sendfileThreshold", 0L);
+        file = Files.write(directory.resolve("content.bin"), new byte[100]);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(LAST_MODIFIED));
+    }
+
+    private static MockHttpServletRequest request(boolean sendfile) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/files/1/download");
+        if (sendfile) {
+            request.setAttribute(FileStreamingSupport.SENDFILE_SUPPORT_ATTR, Boolean.TRUE);
+        }
+        return request;
+    }
+
+    private static HttpHeaders etagHeaders(String etag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        return headers;
+    }
+
+    private static String httpDate(long millis) {
+        HttpHeaders formatter = new HttpHeaders();
+        formatter.setDate(HttpHeaders.IF_RANGE, millis);
+        return formatter.getFirst(HttpHeaders.IF_RANGE);
+    }
+
+    @Test
+    void fullFileWithoutSendfileIsStreamedFromDisk() throws IOException {
+        ResponseEntity<Resource> response = streaming.stream(file, new HttpHeaders(), request(false));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertInstanceOf(FileSystemResource.class, response.getBody());
+        assertEquals("bytes", response.getHeaders().getFirst(HttpHeaders.ACCEPT_RANGES));
+        assertEquals(LAST_MODIFIED, response.getHeaders().getLastModified());
+    }
+
+    @Test
+    void fullFileIsHandedToSendfile() throws IOException {
+        MockHttpServletRequest request = request(true);
+        ResponseEntity<Resource> response = streaming.stream(file, new HttpHeaders(), request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(response.getBody());
+        assertEquals(100, response.getHeaders().getContentLength());
+        assertEquals(0L, request.getAttribute(FileStreamingSupport.SENDFILE_START_ATTR));
+        assertEquals(100L, request.getAttribute(FileStreamingSupport.SENDFILE_END_ATTR));
+    }
+
+    @Test
+    void singleRangeIsSentWithSendfile() throws IOException {
+        MockHttpServletRequest request = request(true);
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-19");
+        ResponseEntity<Resource> response = streaming.stream(file, new HttpHeaders(), request);
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertEquals("bytes 10-19/100", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals(10, response.getHeaders().getContentLength());
+        assertEquals(10L, request.getAttribute(FileStreamingSupport.SENDFILE_START_ATTR));
+        assertEquals(20L, request.getAttribute(FileStreamingSupport.SENDFILE_END_ATTR));
+    }
+
+    @Test
+    void suffixRangeCoversTheEndOfTheFile() throws IOException {
+        MockHttpServletRequest request = request(true);
+        request.addHeader(HttpHeaders.RANGE, "bytes=-30");
+        ResponseEntity<Resource> response = streaming.stream(file, new HttpHeaders(), request);
+
+        assertEquals("bytes 70-99/100", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals(30, response.getHeaders().getContentLength());
+    }
+
+    @Test
+    void multipleRangesAreLeftToSpring() throws IOException {
+        MockHttpServletRequest request = request(true);
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-9,50-59");
+        ResponseEntity<Resource> response = streaming.stream(file, new HttpHeaders(), request);
+
+        assertInstanceOf(FileSystemResource.class, response.getBody());
+        assertNull(request.getAttribute(FileStreamingSupport.SENDFILE_FILENAME_ATTR));
+    }
+
+    @Test
+    void unsatisfiableRangeIsLeftToSpring() throws IOException {
+        MockHttpServletRequest request = request(true);
+        request.addHeader(HttpHeaders.RANGE, "bytes=500-600");
+        ResponseEntity<Resource> response = streaming.stream(file, new HttpHeaders(), request);
+
+        assertInstanceOf(FileSystemResource.class, response.getBody());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertNull(request.getAttribute(FileStreamingSupport.SENDFILE_FILENAME_ATTR));
+    }
+
+    @Test
+    void openRangeStartingAfterTheEndIsLeftToSpring() throws IOException {
+        MockHttpServletRequest request = request(true);
+        request.addHeader(HttpHeaders.RANGE, "bytes=500-");
+        ResponseEntity<Resource> response = streaming.stream(file, new HttpHeaders(), request);
+
+        assertInstanceOf(FileSystemResource.class, response.getBody());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertNull(request.getAttribute(FileStreamingSupport.SENDFILE_FILENAME_ATTR));
+    }
+
+    @Test
+    void matchingIfRangeEtagKeepsTheRange() throws IOException {
+        MockHttpServletRequest request = request(true);
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-19");
+        request.addHeader(HttpHeaders.IF_RANGE, ETAG);
+        ResponseEntity<Resource> response = streaming.stream(file, etagHeaders(ETAG), request);
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+    }
+
+    @Test
+    void staleIfRangeEtagReturnsTheWholeFile() throws IOException {
+        MockHttpServletRequest request = request(false);
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-19");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"content-0\"");
+        ResponseEntity<Resource> response = streaming.stream(file, etagHeaders(ETAG), request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        // Flux non découpable : Spring ne peut pas appliquer la plage après coup
+        assertInstanceOf(InputStreamResource.class, response.getBody());
+        assertEquals(100, response.getHeaders().getContentLength());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        response.getBody().getInputStream().close();
+    }
+
+    @Test
+    void weakEtagNeverSatisfiesIfRange() throws IOException {
+        MockHttpServletRequest request = request(true);
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-19");
+        request.addHeader(HttpHeaders.IF_RANGE, "W/" + ETAG);
+        ResponseEntity<Resource> response = streaming.stream(file, etagHeaders("W/" + ETAG), request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(100, response.getHeaders().getContentLength());
+    }
+
+    @Test
+    void ifRangeDateMustMatchLastModified() throws IOException {
+        MockHttpServletRequest current = request(true);
+        current.addHeader(HttpHeaders.RANGE, "bytes=10-19");
+        current.addHeader(HttpHeaders.IF_RANGE, httpDate(LAST_MODIFIED));
+        assertEquals(HttpStatus.PARTIAL_CONTENT, streaming.stream(file, new HttpHeaders(), current).getStatusCode());
+
+        MockHttpServletRequest stale = request(true);
+        stale.addHeader(HttpHeaders.RANGE, "bytes=10-19");
+        stale.addHeader(HttpHeaders.IF_RANGE, httpDate(LAST_MODIFIED - 60_000));
+        assertEquals(HttpStatus.OK, streaming.stream(file, new HttpHeaders(), stale).getStatusCode());
+    }
+
+    @Test
+    void smallFilesAndHeadRequestsSkipSendfile() throws IOException {
+        ReflectionTestUtils.setField(streaming, "sendfileThreshold", 1000L);
+        MockHttpServletRequest small = request(true);
+        assertInstanceOf(FileSystemResource.class, streaming.stream(file, new HttpHeaders(), small).getBody());
+        assertNull(small.getAttribute(FileStreamingSupport.SENDFILE_FILENAME_ATTR));
+
+        ReflectionTestUtils.setField(streaming, "sendfileThreshold", 0L);
+        MockHttpServletRequest head = request(true);
+        head.setMethod("HEAD");
+        assertInstanceOf(FileSystemResource.class, streaming.stream(file, new HttpHeaders(), head).getBody());
+        assertNull(head.getAttribute(FileStreamingSupport.SENDFILE_FILENAME_ATTR));
+    }
+
+    private Path gzipFile(String text) throws IOException {
+        Path gzip = directory.resolve("content.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzip))) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return gzip;
+    }
+
+    private boolean accepts(String... acceptEncoding) {
+        MockHttpServletRequest request = request(false);
+        for (String value : acceptEncoding) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, value);
+        }
+        return streaming.acceptsEncoding(request, "gzip");
+    }
+
+    @Test
+    void acceptEncodingIsParsedWithQualityValues() {
+        assertTrue(accepts("gzip"));
+        assertTrue(accepts("deflate, GZIP;q=0.5"));
+        assertTrue(accepts("br", "gzip"));
+        assertFalse(accepts());
+        assertFalse(accepts("deflate, br"));
+        assertFalse(accepts("gzip;q=0"));
+        assertFalse(accepts("gzip; q=0.000"));
+        assertFalse(accepts("x-gzip"));
+    }
+
+    @Test
+    void gzipClientsGetTheStoredBytesWithRanges() throws IOException {
+        Path gzip = gzipFile("hello, compressed world");
+        MockHttpServletRequest request = request(true);
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-9");
+        ResponseEntity<Resource> response = streaming.streamEncoded(gzip, "gzip", 23, new HttpHeaders(), request);
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("bytes 0-9/" + Files.size(gzip), response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals(List.of(HttpHeaders.ACCEPT_ENCODING), response.getHeaders().getVary());
+    }
+
+    @Test
+    void otherClientsGetDecompressedContentWithoutRanges() throws IOException {
+        Path gzip = gzipFile("hello, compressed world");
+        MockHttpServletRequest request = request(true);
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-9");
+        ResponseEntity<Resource> response = streaming.streamEncoded(gzip, "gzip", 23, new HttpHeaders(), request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("none", response.getHeaders().getFirst(HttpHeaders.ACCEPT_RANGES));
+        assertEquals(23, response.getHeaders().getContentLength());
+        assertNull(request.getAttribute(FileStreamingSupport.SENDFILE_FILENAME_ATTR));
+        try (InputStream body = response.getBody().getInputStream()) {
+            assertEquals("hello, compressed world", new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.ApplicationGoogleDrive.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccessDecisionCacheTest {
+
+    private final AccessDecisionCache cache = new AccessDecisionCache(1000, 300);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private boolean get(long fileId, long userId, boolean decision) {
+        return cache.get(fileId, userId, () -> {
+            loads.incrementAndGet();
+            return decision;
+        });
+    }
+
+    @Test
+    void decisionIsLoadedOnce() {
+        assertTrue(get(1, 10, true));
+        assertTrue(get(1, 10, false));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void invalidateFileOnlyDropsThatFile() {
+        get(1, 10, true);
+        get(1, 11, true);
+        get(2, 10, true);
+
+        cache.invalidateFile(1L);
+
+        assertFalse(get(1, 10, false));
+        assertFalse(get(1, 11, false));
+        assertTrue(get(2, 10, false));
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    void invalidateFilesDropsEveryListedFile() {
+        get(1, 10, true);
+        get(2, 10, true);
+        get(3, 10, true);
+
+        cache.invalidateFiles(List.of(1L, 2L));
+
+        assertFalse(get(1, 10, false));
+        assertFalse(get(2, 10, false));
+        assertTrue(get(3, 10, false));
+    }
+
+    @Test
+    void singleInvalidationKeepsOtherUsers() {
+        get(1, 10, true);
+        get(1, 11, true);
+
+        cache.invalidate(1L, 10L);
+        cache.invalidateAll(Map.of(1L, List.of(11L)));
+        get(1, 12, true);
+
+        assertFalse(get(1, 10, false));
+        assertFalse(get(1, 11, false));
+        // L'index du fichier est toujours à jour après les invalidations ciblées
+        cache.invalidateFile(1L);
+        assertFalse(get(1, 12, false));
+    }
+}
@@ -0,0 +1,138 @@
+package com.ApplicationGoogleDrive.service;
+
+import com.ApplicationGoogleDrive.model.StoredContent;
+import com.ApplicationGoogleDrive.repository.StoredContentRepository;
+import com.ApplicationGoogleDrive.service.ContentStoreService.StagedContent;
+import com.ApplicationGoogleDrive.service.ContentStoreService.StoredObject;
+import com.ApplicationGoogleDrive.storage.LocalStorageBackend;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ContentStoreServiceTest {
+
+    private static final byte[] CONTENT = "ligne de journal\n".repeat(200).getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path volume;
+
+    // Table stored_contents simulée
+    private final Map<String, StoredContent> rows = new HashMap<>();
+    private final ContentStoreService service = new ContentStoreService();
+    private LocalStorageBackend storageBackend;
+
+    @BeforeEach
+    void setUp() {
+        StoredContentRepository repository = mock(StoredContentRepository.class);
+        doAnswer(invocation -> {
+            StoredContent content = rows.computeIfAbsent(invocation.getArgument(0), hash -> {
+                StoredContent created = new StoredContent();
+                created.setHash(hash);
+                created.setSize(invocation.getArgument(1));
+                created.setStorageKey(invocation.getArgument(2));
+                created.setEncoding(invocation.getArgument(3));
+                return created;
+            });
+            content.setReferenceCount(content.getReferenceCount() + 1);
+            return null;
+        }).when(repository).upsertReference(anyString(), anyLong(), anyString(), any());
+        when(repository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(rows.get(invocation.<String>getArgument(0))));
+        when(repository.findByHashForUpdate(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(rows.get(invocation.<String>getArgument(0))));
+        doAnswer(invocation -> rows.remove(invocation.<StoredContent>getArgument(0).getHash()))
+                .when(repository).delete(any(StoredContent.class));
+
+        storageBackend = new LocalStorageBackend(new String[]{volume.toString()});
+        ReflectionTestUtils.setField(service, "storedContentRepository", repository);
+        ReflectionTestUtils.setField(service, "storageBackend", storageBackend);
+        ReflectionTestUtils.setField(service, "compressionEnabled", true);
+        ReflectionTestUtils.setField(service, "compressibleTypes", new String[]{"text/"});
+    }
+
+    // Dernière référence retirée sans que deleteOrphaned n'ait tourné (rollback, suppression concurrente) :
+    // la ligne disparaît, les octets restent sur le disque
+    private void orphan(String hash) {
+        assertTrue(service.release(hash).isPresent());
+    }
+
+    private StoredObject store(String contentType) throws IOException {
+        StagedContent staged = service.stage(new ByteArrayInputStream(CONTENT), contentType);
+        return service.commit(staged);
+    }
+
+    private byte[] read(StoredObject stored) throws IOException {
+        try (InputStream in = ContentStoreService.decode(
+                Files.newInputStream(storageBackend.resolve(stored.storageKey())), stored.encoding())) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Test
+    void rawContentDoesNotReuseOrphanedGzipBytes() throws IOException {
+        StoredObject compressed = store("text/plain");
+        assertEquals(ContentStoreService.GZIP, compressed.encoding());
+        orphan(rows.keySet().iterator().next());
+
+        StoredObject raw = store("application/octet-stream");
+        assertNull(raw.encoding());
+        assertNotEquals(compressed.storageKey(), raw.storageKey());
+        assertArrayEquals(CONTENT, Files.readAllBytes(storageBackend.resolve(raw.storageKey())));
+    }
+
+    @Test
+    void gzipContentDoesNotReuseOrphanedRawBytes() throws IOException {
+        StoredObject raw = store("application/octet-stream");
+        assertNull(raw.encoding());
+        orphan(rows.keySet().iterator().next());
+
+        StoredObject compressed = store("text/plain");
+        assertEquals(ContentStoreService.GZIP, compressed.encoding());
+        assertNotEquals(raw.storageKey(), compressed.storageKey());
+        assertArrayEquals(CONTENT, read(compressed));
+    }
+
+    @Test
+    void orphanedBytesWithTheSameEncodingAreReused() throws IOException {
+        StoredObject first = store("text/plain");
+        orphan(rows.keySet().iterator().next());
+
+        StoredObject second = store("text/plain");
+        assertEquals(first.storageKey(), second.storageKey());
+        assertArrayEquals(CONTENT, read(second));
+    }
+
+    @Test
+    void identicalContentIsStoredOnce() throws IOException {
+        StoredObject first = store("text/plain");
+        StoredObject second = store("application/octet-stream");
+
+        // Le second upload reprend l'encodage du premier exemplaire
+        assertEquals(first, second);
+        assertEquals(2L, rows.values().iterator().next().getReferenceCount());
+        assertArrayEquals(CONTENT, read(second));
+    }
+}
@@ -0,0 +1,113 @@
+package com.ApplicationGoogleDrive.service;
+
+import com.ApplicationGoogleDrive.dto.FileSearchEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileSearchIndexTest {
+
+    private static final Long OWNER = 1L;
+    private static final Long OTHER = 2L;
+    private static final Function<Collection<Long>, Set<Long>> NO_GRANTS = ids -> Set.of();
+
+    private FileSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FileSearchIndex();
+        ReflectionTestUtils.setField(index, "minGramMatch", 0.6);
+    }
+
+    private void add(long id, String name, String description) {
+        index.index(new FileSearchEntry(id, name, description, OWNER, true));
+    }
+
+    private List<Long> search(String query) {
+        return index.search(query, OWNER, NO_GRANTS, 20).stream().map(FileSearchIndex.SearchHit::fileId).toList();
+    }
+
+    @Test
+    void tokenizeLowercasesAndStripsAccentsAndPunctuation() {
+        assertEquals(List.of("ete", "2024", "rapport", "final", "pdf"),
+                FileSearchIndex.tokenize("Été 2024 — Rapport_final.PDF"));
+        assertEquals(List.of(), FileSearchIndex.tokenize("  "));
+        assertEquals(List.of(), FileSearchIndex.tokenize(null));
+    }
+
+    @Test
+    void prefixesMatchFromTheFirstLetter() {
+        add(1, "invoice-march.pdf", null);
+        add(2, "notes.txt", null);
+        assertEquals(List.of(1L), search("i"));
+        assertEquals(List.of(1L), search("inv"));
+        assertEquals(List.of(1L), search("INVOICE"));
+    }
+
+    @Test
+    void toleratesATypoButNotAnUnrelatedWord() {
+        add(1, "invoice.pdf", null);
+        assertEquals(List.of(1L), search("invoise"));
+        assertEquals(List.of(), search("holiday"));
+    }
+
+    @Test
+    void accentsAreIgnoredOnBothSides() {
+        add(1, "Résumé été.docx", null);
+        assertEquals(List.of(1L), search("resume ete"));
+        assertEquals(List.of(1L), search("résumé"));
+    }
+
+    @Test
+    void everyQueryWordMustMatch() {
+        add(1, "invoice march", null);
+        add(2, "invoice april", null);
+        assertEquals(List.of(2L), search("invoice april"));
+        assertEquals(List.of(), search("invoice june"));
+    }
+
+    @Test
+    void nameMatchesRankBeforeDescriptionMatches() {
+        add(1, "notes.txt", "budget review");
+        add(2, "budget.xlsx", null);
+        assertEquals(List.of(2L, 1L), search("budget"));
+    }
+
+    @Test
+    void reindexingAndRemovalDropOldTerms() {
+        add(1, "draft.txt", null);
+        add(1, "final.txt", null);
+        assertEquals(List.of(), search("draft"));
+        assertEquals(List.of(1L), search("final"));
+
+        index.remove(1L);
+        assertEquals(List.of(), search("final"));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void privateFilesOfOthersNeedAGrant() {
+        index.index(new FileSearchEntry(1L, "salary.xlsx", null, OTHER, false));
+        index.index(new FileSearchEntry(2L, "salary-own.xlsx", null, OWNER, false));
+
+        List<FileSearchIndex.SearchHit> withoutGrant = index.search("salary", OWNER, NO_GRANTS, 20);
+        assertEquals(List.of(2L), withoutGrant.stream().map(FileSearchIndex.SearchHit::fileId).toList());
+
+        List<FileSearchIndex.SearchHit> withGrant = index.search("salary", OWNER, ids -> Set.of(1L), 20);
+        assertEquals(2, withGrant.size());
+
+        assertTrue(index.search("salary", null, ids -> Set.of(1L), 20).isEmpty());
+
+        index.updateVisibility(1L, true);
+        assertEquals(List.of(1L), index.search("salary", null, NO_GRANTS, 20).stream()
+                .map(FileSearchIndex.SearchHit::fileId).toList());
+    }
+}
@@ -0,0 +1,88 @@
+package com.ApplicationGoogleDrive.service;
+
+import com.ApplicationGoogleDrive.dto.FileStatusRow;
+import com.ApplicationGoogleDrive.model.AccessRequest.RequestStatus;
+import com.ApplicationGoogleDrive.service.FileStatusResolver.FileStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileStatusResolverTest {
+
+    private static FileStatusRow row(boolean isPublic, RequestStatus requestStatus) {
+        LocalDateTime now = LocalDateTime.now();
+        return new FileStatusRow(1L, "report.pdf", null, 1024L, "application/pdf", now, isPublic,
+                2L, "owner@example.com", "Ada", "Lovelace",
+                requestStatus != null ? 10L : null, requestStatus, null,
+                requestStatus != null ? now : null, null);
+    }
+
+    // Fichier privé d'un autre utilisateur, vu par un utilisateur connecté
+    private static FileStatus othersPrivate(RequestStatus requestStatus, boolean granted) {
+        return new FileStatus(row(false, requestStatus), false, granted, true);
+    }
+
+    @Test
+    void ownerCanManageButNotRequest() {
+        FileStatus status = new FileStatus(row(false, null), true, false, true);
+        assertFalse(status.canRequest());
+        assertEquals(List.of("view", "download", "delete", "change-visibility", "move"), status.actions());
+    }
+
+    @Test
+    void publicFileIsReadableByEveryoneWithoutRequest() {
+        FileStatus anonymous = new FileStatus(row(true, null), false, false, false);
+        assertFalse(anonymous.canRequest());
+        assertEquals(List.of("view", "download"), anonymous.actions());
+
+        FileStatus signedIn = new FileStatus(row(true, null), false, false, true);
+        assertFalse(signedIn.canRequest());
+        assertEquals(List.of("view", "download"), signedIn.actions());
+    }
+
+    @Test
+    void anonymousUserCannotRequestAPrivateFile() {
+        FileStatus status = new FileStatus(row(false, null), false, false, false);
+        assertFalse(status.canRequest());
+        assertEquals(List.of(), status.actions());
+    }
+
+    @Test
+    void privateFileWithoutRequestCanBeRequested() {
+        FileStatus status = othersPrivate(null, false);
+        assertTrue(status.canRequest());
+        assertEquals(List.of("request-access"), status.actions());
+    }
+
+    @Test
+    void pendingRequestCanOnlyBeCancelled() {
+        FileStatus status = othersPrivate(RequestStatus.PENDING, false);
+        assertFalse(status.canRequest());
+        assertEquals(List.of("cancel-request"), status.actions());
+    }
+
+    @Test
+    void rejectedRequestCanBeMadeAgain() {
+        FileStatus status = othersPrivate(RequestStatus.REJECTED, false);
+        assertTrue(status.canRequest());
+        assertEquals(List.of("request-access"), status.actions());
+    }
+
+    @Test
+    void approvedRequestGivesAccess() {
+        FileStatus status = othersPrivate(RequestStatus.APPROVED, true);
+        assertTrue(status.hasAccess());
+        assertFalse(status.canRequest());
+        assertEquals(List.of("view", "download"), status.actions());
+    }
+
+    @Test
+    void ownerNameJoinsFirstAndLastName() {
+        assertEquals("Ada Lovelace", othersPrivate(null, false).ownerName());
+    }
+}
@@ -0,0 +1,50 @@
+package com.ApplicationGoogleDrive.service;
+
+import com.ApplicationGoogleDrive.model.Folder;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FolderServiceTest {
+
+    private static Folder folder(String path) {
+        Folder folder = new Folder();
+        folder.setPath(path);
+        return folder;
+    }
+
+    @Test
+    void rootFolderPathContainsOnlyItsId() {
+        assertEquals("/12/", FolderService.childPath(null, 12L));
+    }
+
+    @Test
+    void childPathExtendsTheParentPath() {
+        assertEquals("/1/5/42/", FolderService.childPath(folder("/1/5/"), 42L));
+    }
+
+    @Test
+    void ancestorIdsGoFromTheRootToTheFolder() {
+        assertEquals(List.of(1L, 5L, 42L), FolderService.ancestorIds("/1/5/42/"));
+        assertEquals(List.of(7L), FolderService.ancestorIds("/7/"));
+        assertEquals(List.of(), FolderService.ancestorIds("/"));
+    }
+
+    @Test
+    void childPathRoundTripsThroughAncestorIds() {
+        Folder parent = folder(FolderService.childPath(folder("/3/"), 8L));
+        assertEquals(List.of(3L, 8L, 20L), FolderService.ancestorIds(FolderService.childPath(parent, 20L)));
+    }
+
+    @Test
+    void subtreePrefixDoesNotMatchSiblingsWithALongerId() {
+        // Le "/" final évite qu'un préfixe LIKE "/1/" corresponde au chemin "/12/"
+        String path = FolderService.childPath(null, 1L);
+        assertTrue(FolderService.childPath(folder(path), 2L).startsWith(path));
+        assertFalse(FolderService.childPath(null, 12L).startsWith(path));
+    }
+}
@@ -0,0 +1,94 @@
+package com.ApplicationGoogleDrive.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeysetCursorsTest {
+
+    private static final Sort BY_NAME = Sort.by(Sort.Direction.ASC, "fileName").and(Sort.by(Sort.Direction.ASC, "id"));
+    private static final Sort BY_DATE = Sort.by(Sort.Direction.DESC, "uploadedAt").and(Sort.by(Sort.Direction.DESC, "id"));
+
+    private static Map<String, Object> roundTrip(Map<String, Object> keys, Sort sort) {
+        String cursor = KeysetCursors.encode(ScrollPosition.forward(keys));
+        return ((KeysetScrollPosition) KeysetCursors.decode(cursor, sort)).getKeys();
+    }
+
+    private static String base64(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void dateAndIdKeysRoundTrip() {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("uploadedAt", LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_000_000));
+        keys.put("id", 42L);
+        assertEquals(keys, roundTrip(keys, BY_DATE));
+    }
+
+    @Test
+    void stringKeysWithSeparatorsRoundTrip() {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("fileName", "report, final: v2/été.pdf");
+        keys.put("id", 7L);
+        assertEquals(keys, roundTrip(keys, BY_NAME));
+    }
+
+    @Test
+    void nullKeyIsNotReadBackAsTheStringNull() {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("fileName", null);
+        keys.put("id", 7L);
+        assertEquals(keys, roundTrip(keys, BY_NAME));
+
+        Map<String, Object> literal = new LinkedHashMap<>();
+        literal.put("fileName", "null");
+        literal.put("id", 7L);
+        assertEquals(literal, roundTrip(literal, BY_NAME));
+    }
+
+    @Test
+    void missingCursorStartsFromTheFirstPage() {
+        assertTrue(((KeysetScrollPosition) KeysetCursors.decode(null, BY_NAME)).isInitial());
+        assertTrue(((KeysetScrollPosition) KeysetCursors.decode(" ", BY_NAME)).isInitial());
+    }
+
+    @Test
+    void cursorOfAnotherSortIsRejected() {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("fileName", "a.txt");
+        keys.put("id", 1L);
+        String cursor = KeysetCursors.encode(ScrollPosition.forward(keys));
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> KeysetCursors.decode(cursor, BY_DATE));
+        assertEquals("Cursor does not match the requested sort", error.getMessage());
+    }
+
+    @Test
+    void tamperedCursorsAreRejectedAsInvalid() {
+        String[] cursors = {
+                "not base64 !",
+                base64("id"),
+                base64("fileName:S:" + base64("a") + ",id:L:@@not-base64@@"),
+                base64("fileName:S:" + base64("a") + ",id:L:" + base64("forty-two")),
+                base64("fileName:X:" + base64("a") + ",id:L:" + base64("1")),
+                base64("fileName:N:" + base64("a") + ",id:L:" + base64("1")),
+        };
+        for (String cursor : cursors) {
+            IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                    () -> KeysetCursors.decode(cursor, BY_NAME), cursor);
+            assertEquals("Invalid cursor", error.getMessage());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.ApplicationGoogleDrive.service;
+
+import com.ApplicationGoogleDrive.model.UploadSession;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UploadSessionServiceTest {
+
+    private final UploadSessionService service = new UploadSessionService();
+
+    private static UploadSession session(long totalSize, int chunkSize) {
+        UploadSession session = new UploadSession();
+        session.setTotalSize(totalSize);
+        session.setChunkSize(chunkSize);
+        session.setTotalChunks((int) UploadSessionService.chunkCount(totalSize, chunkSize));
+        return session;
+    }
+
+    @Test
+    void chunkCountRoundsUp() {
+        assertEquals(1, UploadSessionService.chunkCount(1, 1024));
+        assertEquals(1, UploadSessionService.chunkCount(1024, 1024));
+        assertEquals(2, UploadSessionService.chunkCount(1025, 1024));
+        assertEquals(4, UploadSessionService.chunkCount(4096, 1024));
+    }
+
+    @Test
+    void lastChunkHoldsTheRemainder() {
+        UploadSession session = session(2500, 1000);
+        assertEquals(1000, UploadSessionService.expectedChunkSize(session, 0));
+        assertEquals(1000, UploadSessionService.expectedChunkSize(session, 1));
+        assertEquals(500, UploadSessionService.expectedChunkSize(session, 2));
+    }
+
+    @Test
+    void chunkSizesAddUpToTheFileSize() {
+        UploadSession session = session(10_000_019L, 65_536);
+        long total = 0;
+        for (int i = 0; i < session.getTotalChunks(); i++) {
+            total += UploadSessionService.expectedChunkSize(session, i);
+        }
+        assertEquals(session.getTotalSize(), total);
+    }
+
+    @Test
+    void chunkOffsetsBeyondTwoGigabytesDoNotOverflow() {
+        UploadSession session = session(5L * 1024 * 1024 * 1024 + 7, 64 * 1024 * 1024);
+        assertEquals(81, session.getTotalChunks());
+        assertEquals(64 * 1024 * 1024, UploadSessionService.expectedChunkSize(session, 79));
+        assertEquals(7, UploadSessionService.expectedChunkSize(session, 80));
+    }
+
+    @Test
+    void contiguousOffsetStopsAtTheFirstGap() {
+        UploadSession session = session(2500, 1000);
+        assertEquals(0, service.getContiguousOffset(session, List.of()));
+        assertEquals(0, service.getContiguousOffset(session, List.of(1, 2)));
+        assertEquals(1000, service.getContiguousOffset(session, List.of(0, 2)));
+        assertEquals(2000, service.getContiguousOffset(session, List.of(0, 1)));
+    }
+
+    @Test
+    void contiguousOffsetOfACompleteUploadIsTheFileSize() {
+        UploadSession session = session(2500, 1000);
+        assertEquals(2500, service.getContiguousOffset(session, List.of(0, 1, 2)));
+    }
+}